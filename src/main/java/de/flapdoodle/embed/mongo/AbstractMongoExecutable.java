@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.Collections;
+import java.util.List;
+
+import de.flapdoodle.embed.mongo.config.MongoCommonConfig;
+import de.flapdoodle.embed.process.config.RuntimeConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.runtime.Executable;
+import de.flapdoodle.embed.process.runtime.IStopable;
+
+public abstract class AbstractMongoExecutable<T extends MongoCommonConfig, P extends IStopable> extends Executable<T, P> {
+
+	private volatile List<StartupTimings.Span> preparationTimings = Collections.emptyList();
+
+	protected AbstractMongoExecutable(Distribution distribution, T config, RuntimeConfig runtimeConfig,
+			ExtractedFileSet files) {
+		super(distribution, config, runtimeConfig, files);
+	}
+
+	void setPreparationTimings(List<StartupTimings.Span> preparationTimings) {
+		this.preparationTimings = Collections.unmodifiableList(preparationTimings);
+	}
+
+	List<StartupTimings.Span> getPreparationTimings() {
+		return preparationTimings;
+	}
+}
@@ -22,19 +22,30 @@ package de.flapdoodle.embed.mongo;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.flapdoodle.embed.mongo.config.MongoCommonConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.ReadinessProbe;
+import de.flapdoodle.embed.mongo.config.ReadinessProbes;
+import de.flapdoodle.embed.mongo.distribution.Feature;
 import de.flapdoodle.embed.mongo.runtime.Mongod;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.config.io.ProcessOutput;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.io.LogWatchStreamProcessor;
 import de.flapdoodle.embed.process.io.Processors;
+import de.flapdoodle.embed.process.io.StreamProcessor;
 import de.flapdoodle.embed.process.io.StreamToLineProcessor;
 import de.flapdoodle.embed.process.runtime.AbstractProcess;
 import de.flapdoodle.embed.process.runtime.Executable;
@@ -47,21 +58,73 @@ public abstract class AbstractMongoProcess<T extends MongoCommonConfig, E extend
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMongoProcess.class);
 	
 	private boolean stopped;
+	private Readiness readiness;
+	private volatile StopReport stopReport;
+	// set from hooks called by the super constructor, so no initializers here
+	private ProcessControl processControl;
+	private List<StartupTimings.Span> processTimings;
+	private long phaseStarted;
+	private final StartupTimings startupTimings;
 	
 	public AbstractMongoProcess(Distribution distribution, T config, RuntimeConfig runtimeConfig, E executable)
 			throws IOException {
 		super(distribution, config, runtimeConfig, executable);
+
+		List<StartupTimings.Span> spans = new ArrayList<>();
+		if (executable instanceof AbstractMongoExecutable) {
+			spans.addAll(((AbstractMongoExecutable<?, ?>) executable).getPreparationTimings());
+		}
+		if (processTimings != null) {
+			spans.addAll(processTimings);
+		}
+		startupTimings = new StartupTimings(spans);
+	}
+
+	@Override
+	protected void onBeforeProcess(RuntimeConfig runtimeConfig) {
+		super.onBeforeProcess(runtimeConfig);
+		phaseStarted = System.nanoTime();
+	}
+
+	@Override
+	protected void onBeforeProcessStart(ProcessBuilder processBuilder, T config, RuntimeConfig runtimeConfig) {
+		super.onBeforeProcessStart(processBuilder, config, runtimeConfig);
+		phaseDone(StartupTimings.Phase.DB_DIR);
+	}
+
+	private void phaseDone(StartupTimings.Phase phase) {
+		long now = System.nanoTime();
+		if (processTimings == null) {
+			processTimings = new ArrayList<>();
+		}
+		processTimings.add(new StartupTimings.Span(phase, phaseStarted, now));
+		phaseStarted = now;
 	}
 
 	@Override
 	protected final void onAfterProcessStart(ProcessControl process, RuntimeConfig runtimeConfig) {
+		phaseDone(StartupTimings.Phase.SPAWN);
+		processControl = process;
+		long started = phaseStarted;
 		ProcessOutput outputConfig = runtimeConfig.processOutput();
+		CompletableFuture<Readiness.Source> ready = new CompletableFuture<>();
 		LogWatchStreamProcessor logWatch = new LogWatchStreamProcessor(successMessage(), knownFailureMessages(),
 				StreamToLineProcessor.wrap(outputConfig.getOutput()));
-		Processors.connect(process.getReader(), logWatch);
+		Processors.connect(process.getReader(), new CompletingLogWatch(logWatch, ready));
 		Processors.connect(process.getError(), StreamToLineProcessor.wrap(outputConfig.getError()));
-		logWatch.waitForResult(getConfig().timeout().getStartupTimeout());
-		if (logWatch.isInitWithSuccess()) {
+		startReadinessProbe(ready);
+
+		Readiness.Source source = awaitReadiness(ready, getConfig().timeout().getStartupTimeout());
+		if (source == Readiness.Source.PROBE) {
+			readiness = new Readiness(source, System.nanoTime() - started);
+			phaseDone(StartupTimings.Phase.READY);
+			int pid = Mongod.getMongodProcessId(logWatch.getOutput(), -1);
+			if (pid != -1) {
+				setProcessId(pid);
+			}
+		} else if (logWatch.isInitWithSuccess()) {
+			readiness = new Readiness(Readiness.Source.LOG, System.nanoTime() - started);
+			phaseDone(StartupTimings.Phase.READY);
 			setProcessId(Mongod.getMongodProcessId(logWatch.getOutput(), -1));
 		} else {
 			String failureFound = logWatch.getFailureFound();
@@ -84,8 +147,60 @@ public abstract class AbstractMongoProcess<T extends MongoCommonConfig, E extend
 		}
 	}
 
+	private void startReadinessProbe(CompletableFuture<Readiness.Source> ready) {
+		ReadinessProbe probe = getConfig().readinessProbe();
+		if (probe == ReadinessProbes.none()) {
+			return;
+		}
+		Net net = getConfig().net();
+		long timeout = getConfig().timeout().getStartupTimeout();
+		Thread thread = new Thread(() -> {
+			try {
+				if (probe.awaitReady(net.getServerAddress(), net.getPort(), timeout, ready::isDone)) {
+					ready.complete(Readiness.Source.PROBE);
+				}
+			} catch (UnknownHostException e) {
+				LOGGER.warn("readiness probe", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "readiness-probe-" + net.getPort());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static Readiness.Source awaitReadiness(CompletableFuture<Readiness.Source> ready, long timeoutInMillis) {
+		try {
+			return ready.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			// no result in time, same as a log watcher without success
+		} finally {
+			// stops the probe if the log watcher was faster or the timeout was hit
+			ready.complete(Readiness.Source.LOG);
+		}
+		return Readiness.Source.LOG;
+	}
+
+	/**
+	 * @return where the time to start this process went
+	 */
+	public StartupTimings getStartupTimings() {
+		return startupTimings;
+	}
+
+	/**
+	 * @return how the process was found to be ready, null if it was not
+	 */
+	public Readiness getReadiness() {
+		return readiness;
+	}
+
 	protected String successMessage() {
-		return "waiting for connections on port";
+		return getConfig().version().enabled(Feature.JSON_LOG)
+				? "\"msg\":\"Waiting for connections\""
+				: "waiting for connections on port";
 	}
 	
 	private Set<String> knownFailureMessages() {
@@ -103,22 +218,92 @@ public abstract class AbstractMongoProcess<T extends MongoCommonConfig, E extend
 
 				stopped = true;
 
-				LOGGER.debug("try to stop mongod");
-				if (!sendStopToMongoInstance()) {
-					LOGGER.warn("could not stop mongod with db command, try next");
-					if (!sendKillToProcess()) {
-						LOGGER.warn("could not stop mongod, try next");
-						if (!tryKillToProcess()) {
-							LOGGER.warn("could not stop mongod the second time, try one last thing");
-						}
-					}
-				}
-
+				long started = System.nanoTime();
+				long deadline = started + TimeUnit.MILLISECONDS.toNanos(getConfig().timeout().getStopTimeout());
+				StopReport.Step step = stopWithEscalation(deadline);
 				stopProcess();
+				stopReport = new StopReport(step, System.nanoTime() - started);
+				LOGGER.debug("stopped: {}", stopReport);
 			}
 		}
 	}
-	
+
+	/**
+	 * every step waits for the process to exit, sharing the time left with
+	 * the steps after it
+	 */
+	private StopReport.Step stopWithEscalation(long deadline) {
+		CompletableFuture<Integer> exit = watchExit();
+		if (exit != null && exit.isDone()) {
+			return StopReport.Step.ALREADY_EXITED;
+		}
+
+		LOGGER.debug("try to stop mongod");
+		if (sendStopToMongoInstance() && awaitExit(exit, deadline, 3)) {
+			return StopReport.Step.SHUTDOWN_COMMAND;
+		}
+		LOGGER.warn("could not stop mongod with db command, try next");
+		if (sendKillToProcess() && awaitExit(exit, deadline, 2)) {
+			return StopReport.Step.KILL;
+		}
+		LOGGER.warn("could not stop mongod, try next");
+		if (tryKillToProcess() && awaitExit(exit, deadline, 1)) {
+			return StopReport.Step.FORCED_KILL;
+		}
+		LOGGER.warn("could not stop mongod the second time, try one last thing");
+		return StopReport.Step.DESTROY;
+	}
+
+	private CompletableFuture<Integer> watchExit() {
+		ProcessControl process = processControl;
+		if (process == null) {
+			return null;
+		}
+		CompletableFuture<Integer> exit = new CompletableFuture<>();
+		Thread watcher = new Thread(() -> {
+			try {
+				exit.complete(process.waitFor());
+			} catch (InterruptedException e) {
+				exit.completeExceptionally(e);
+			}
+		}, "mongo-exit-watcher-" + getProcessId());
+		watcher.setDaemon(true);
+		watcher.start();
+		try {
+			// an exited process is noticed right away, no need to send anything
+			exit.get(10, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			// still running
+		}
+		return exit;
+	}
+
+	private static boolean awaitExit(CompletableFuture<Integer> exit, long deadline, int stepsLeft) {
+		if (exit == null) {
+			// nothing to wait on, trust the step
+			return true;
+		}
+		long remaining = deadline - System.nanoTime();
+		try {
+			exit.get(Math.max(0, remaining / stepsLeft), TimeUnit.NANOSECONDS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException | TimeoutException e) {
+			return exit.isDone();
+		}
+	}
+
+	/**
+	 * @return how the process was stopped, null if it was not stopped yet
+	 */
+	public StopReport getStopReport() {
+		return stopReport;
+	}
+
 	@Override
 	protected void cleanupInternal() {
 		deleteTempFiles();
@@ -128,9 +313,38 @@ public abstract class AbstractMongoProcess<T extends MongoCommonConfig, E extend
 
 	}
 
+	/**
+	 * completes the readiness future as soon as the log watcher has a result
+	 */
+	private static class CompletingLogWatch implements StreamProcessor {
+
+		private final LogWatchStreamProcessor logWatch;
+		private final CompletableFuture<Readiness.Source> ready;
+
+		CompletingLogWatch(LogWatchStreamProcessor logWatch, CompletableFuture<Readiness.Source> ready) {
+			this.logWatch = logWatch;
+			this.ready = ready;
+		}
+
+		@Override
+		public void process(String block) {
+			logWatch.process(block);
+			if (!ready.isDone() && (logWatch.isInitWithSuccess() || logWatch.getFailureFound() != null)) {
+				ready.complete(Readiness.Source.LOG);
+			}
+		}
+
+		@Override
+		public void onProcessed() {
+			logWatch.onProcessed();
+			ready.complete(Readiness.Source.LOG);
+		}
+	}
+
 	protected final boolean sendStopToMongoInstance() {
 		try {
-			return Mongod.sendShutdown(getConfig().net().getServerAddress(), getConfig().net().getPort());
+			return Mongod.sendShutdown(getConfig().net().getServerAddress(), getConfig().net().getPort(),
+					getConfig().version().enabled(Feature.OP_MSG));
 		} catch (UnknownHostException e) {
 			LOGGER.error("sendStop", e);
 		}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.flapdoodle.embed.mongo.config.MongoCommonConfig;
+import de.flapdoodle.embed.process.config.RuntimeConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.runtime.IStopable;
+import de.flapdoodle.embed.process.runtime.Starter;
+
+/**
+ * Records how long it took to prepare an executable, see {@link StartupTimings}.
+ */
+public abstract class AbstractMongoStarter<T extends MongoCommonConfig, E extends AbstractMongoExecutable<T, P>, P extends IStopable>
+		extends Starter<T, E, P> {
+
+	protected AbstractMongoStarter(RuntimeConfig config) {
+		super(config);
+	}
+
+	@Override
+	public E prepare(T config, Distribution distribution) {
+		List<StartupTimings.Span> spans = new ArrayList<>();
+		List<StartupTimings.Span> outer = StartupTimings.beginPreparation(spans);
+		try {
+			long start = System.nanoTime();
+			E executable = super.prepare(config, distribution);
+			long extractionStart = spans.isEmpty() ? start : spans.get(spans.size() - 1).endNanos();
+			spans.add(new StartupTimings.Span(StartupTimings.Phase.EXTRACTION, extractionStart, System.nanoTime()));
+			executable.setPreparationTimings(spans);
+			return executable;
+		} finally {
+			StartupTimings.endPreparation(outer);
+		}
+	}
+}
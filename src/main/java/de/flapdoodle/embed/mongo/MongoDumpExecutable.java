@@ -27,9 +27,8 @@ import de.flapdoodle.embed.mongo.config.MongoDumpConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
-public class MongoDumpExecutable extends Executable<MongoDumpConfig, MongoDumpProcess> {
+public class MongoDumpExecutable extends AbstractMongoExecutable<MongoDumpConfig, MongoDumpProcess> {
     public MongoDumpExecutable(Distribution distribution, MongoDumpConfig mongodConfig, RuntimeConfig runtimeConfig,
                                ExtractedFileSet files) {
         super(distribution, mongodConfig, runtimeConfig, files);
@@ -26,9 +26,8 @@ import de.flapdoodle.embed.mongo.config.MongoDumpConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
-public class MongoDumpStarter extends Starter<MongoDumpConfig,MongoDumpExecutable,MongoDumpProcess> {
+public class MongoDumpStarter extends AbstractMongoStarter<MongoDumpConfig,MongoDumpExecutable,MongoDumpProcess> {
 
     private MongoDumpStarter(RuntimeConfig config) {
         super(config);
@@ -27,12 +27,11 @@ import de.flapdoodle.embed.mongo.config.MongoImportConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
 /**
  * Created by canyaman on 10/04/14.
  */
-public class MongoImportExecutable extends Executable<MongoImportConfig, MongoImportProcess> {
+public class MongoImportExecutable extends AbstractMongoExecutable<MongoImportConfig, MongoImportProcess> {
     public MongoImportExecutable(Distribution distribution, MongoImportConfig mongodConfig, RuntimeConfig runtimeConfig,
                             ExtractedFileSet files) {
         super(distribution, mongodConfig, runtimeConfig, files);
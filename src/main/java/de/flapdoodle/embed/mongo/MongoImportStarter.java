@@ -26,9 +26,8 @@ import de.flapdoodle.embed.mongo.config.MongoImportConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
-public class MongoImportStarter extends Starter<MongoImportConfig,MongoImportExecutable,MongoImportProcess> {
+public class MongoImportStarter extends AbstractMongoStarter<MongoImportConfig,MongoImportExecutable,MongoImportProcess> {
 
     private MongoImportStarter(RuntimeConfig config) {
         super(config);
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.config.MongoCommonConfig;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.MongosConfig;
+import de.flapdoodle.embed.process.config.RuntimeConfig;
+import de.flapdoodle.embed.process.runtime.ProcessControl;
+
+/**
+ * Stops a set of processes concurrently. The stop follows the topology:
+ * first mongos (and any tool process), then all other mongod, config
+ * servers last. Groups not stopped yet are stopped the same way by one
+ * shutdown hook shared by all groups. A stopped (or unreachable) group is
+ * no longer referenced by that hook.
+ * <p>
+ * Members should be started with {@link #runtimeConfigFor(Command, Logger)}:
+ * embed.process registers its own shutdown hook for each daemon process, and
+ * those hooks run concurrently with the group hook, so the order would be lost.
+ */
+public final class MongoProcessGroup {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MongoProcessGroup.class);
+
+	private static final long DEFAULT_TIMEOUT_IN_MILLIS = 30 * 1000L;
+
+	// weak, so a group dropped without stop does not keep its processes reachable
+	private static final Set<MongoProcessGroup> LIVE_GROUPS = Collections.newSetFromMap(new WeakHashMap<>());
+	private static boolean shutdownHookRegistered;
+
+	enum Stage {
+		ROUTER,
+		MONGOD,
+		CONFIG_SERVER
+	}
+
+	private final List<AbstractMongoProcess<?, ?, ?>> processes = new ArrayList<>();
+	private boolean stopped;
+
+	public MongoProcessGroup() {
+		synchronized (LIVE_GROUPS) {
+			LIVE_GROUPS.add(this);
+			if (!shutdownHookRegistered) {
+				ProcessControl.addShutdownHook(MongoProcessGroup::stopLiveGroups);
+				shutdownHookRegistered = true;
+			}
+		}
+	}
+
+	/**
+	 * @return the default runtime config for command, without the per-process
+	 * shutdown hook, so the group hook is the only one stopping its members
+	 */
+	public static RuntimeConfig runtimeConfigFor(Command command, Logger logger) {
+		return Defaults.runtimeConfigFor(command, logger)
+				.isDaemonProcess(false)
+				.build();
+	}
+
+	public MongoProcessGroup add(AbstractMongoProcess<?, ?, ?> process) {
+		if (process.isRegisteredJobKiller()) {
+			LOGGER.warn("{} has its own shutdown hook, on exit it may not stop in topology order", process.getConfig());
+		}
+		synchronized (this) {
+			if (stopped) {
+				throw new IllegalStateException("group already stopped");
+			}
+			processes.add(process);
+		}
+		return this;
+	}
+
+	public MongoProcessGroup addAll(Collection<? extends AbstractMongoProcess<?, ?, ?>> processes) {
+		for (AbstractMongoProcess<?, ?, ?> process : processes) {
+			add(process);
+		}
+		return this;
+	}
+
+	public boolean stop() {
+		return stop(DEFAULT_TIMEOUT_IN_MILLIS);
+	}
+
+	/**
+	 * @return false if some process was not stopped before the timeout
+	 */
+	public boolean stop(long timeoutInMillis) {
+		Map<Stage, List<AbstractMongoProcess<?, ?, ?>>> stages;
+		synchronized (this) {
+			if (stopped) {
+				return true;
+			}
+			stopped = true;
+			stages = stages(processes);
+			processes.clear();
+		}
+		synchronized (LIVE_GROUPS) {
+			LIVE_GROUPS.remove(this);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+		int maxStageSize = stages.values().stream().mapToInt(List::size).max().orElse(0);
+		if (maxStageSize == 0) {
+			return true;
+		}
+		AtomicInteger counter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(maxStageSize, runnable -> {
+			Thread thread = new Thread(runnable, "mongo-group-stop-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		boolean allStopped = true;
+		try {
+			for (Map.Entry<Stage, List<AbstractMongoProcess<?, ?, ?>>> stage : stages.entrySet()) {
+				List<Future<?>> stops = new ArrayList<>();
+				for (AbstractMongoProcess<?, ?, ?> process : stage.getValue()) {
+					stops.add(executor.submit(process::stop));
+				}
+				for (Future<?> stop : stops) {
+					allStopped &= await(stop, deadline);
+				}
+				LOGGER.debug("stopped {} {} processes", stage.getValue().size(), stage.getKey());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (!allStopped) {
+			LOGGER.warn("not all processes stopped within {}ms", timeoutInMillis);
+		}
+		return allStopped;
+	}
+
+	/**
+	 * @return true if the shutdown hook still stops this group
+	 */
+	boolean stopsOnShutdown() {
+		synchronized (LIVE_GROUPS) {
+			return LIVE_GROUPS.contains(this);
+		}
+	}
+
+	private static void stopLiveGroups() {
+		List<MongoProcessGroup> groups;
+		synchronized (LIVE_GROUPS) {
+			groups = new ArrayList<>(LIVE_GROUPS);
+		}
+		for (MongoProcessGroup group : groups) {
+			group.stop();
+		}
+	}
+
+	private static boolean await(Future<?> stop, long deadline) {
+		try {
+			stop.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			LOGGER.warn("stop failed", e);
+			return false;
+		}
+	}
+
+	static Map<Stage, List<AbstractMongoProcess<?, ?, ?>>> stages(List<AbstractMongoProcess<?, ?, ?>> processes) {
+		Map<Stage, List<AbstractMongoProcess<?, ?, ?>>> stages = new EnumMap<>(Stage.class);
+		for (Stage stage : Stage.values()) {
+			stages.put(stage, new ArrayList<>());
+		}
+		for (AbstractMongoProcess<?, ?, ?> process : processes) {
+			stages.get(stageOf(process.getConfig())).add(process);
+		}
+		return stages;
+	}
+
+	static Stage stageOf(MongoCommonConfig config) {
+		if (config instanceof MongodConfig) {
+			return ((MongodConfig) config).isConfigServer() ? Stage.CONFIG_SERVER : Stage.MONGOD;
+		}
+		if (config instanceof MongosConfig) {
+			return Stage.ROUTER;
+		}
+		// tools are clients, so they go first
+		return Stage.ROUTER;
+	}
+}
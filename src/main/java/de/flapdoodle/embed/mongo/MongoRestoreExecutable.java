@@ -27,9 +27,8 @@ import de.flapdoodle.embed.mongo.config.MongoRestoreConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
-public class MongoRestoreExecutable extends Executable<MongoRestoreConfig, MongoRestoreProcess> {
+public class MongoRestoreExecutable extends AbstractMongoExecutable<MongoRestoreConfig, MongoRestoreProcess> {
     public MongoRestoreExecutable(Distribution distribution, MongoRestoreConfig mongodConfig, RuntimeConfig runtimeConfig,
                                   ExtractedFileSet files) {
         super(distribution, mongodConfig, runtimeConfig, files);
@@ -26,9 +26,8 @@ import de.flapdoodle.embed.mongo.config.MongoRestoreConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
-public class MongoRestoreStarter extends Starter<MongoRestoreConfig,MongoRestoreExecutable,MongoRestoreProcess> {
+public class MongoRestoreStarter extends AbstractMongoStarter<MongoRestoreConfig,MongoRestoreExecutable,MongoRestoreProcess> {
 
     private MongoRestoreStarter(RuntimeConfig config) {
         super(config);
@@ -26,12 +26,11 @@ import de.flapdoodle.embed.mongo.config.MongoShellConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
 /**
  *
  */
-public class MongoShellExecutable extends Executable<MongoShellConfig, MongoShellProcess> {
+public class MongoShellExecutable extends AbstractMongoExecutable<MongoShellConfig, MongoShellProcess> {
 
 	public MongoShellExecutable(Distribution distribution, MongoShellConfig mongodConfig, RuntimeConfig runtimeConfig,
 			ExtractedFileSet files) {
@@ -25,9 +25,8 @@ import de.flapdoodle.embed.mongo.config.MongoShellConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
-public class MongoShellStarter extends Starter<MongoShellConfig, MongoShellExecutable ,MongoShellProcess> {
+public class MongoShellStarter extends AbstractMongoStarter<MongoShellConfig, MongoShellExecutable ,MongoShellProcess> {
 
 	private MongoShellStarter(RuntimeConfig config) {
 		super(config);
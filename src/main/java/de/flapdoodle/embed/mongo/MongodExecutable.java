@@ -26,12 +26,11 @@ import de.flapdoodle.embed.mongo.config.MongodConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
 /**
  *
  */
-public class MongodExecutable extends Executable<MongodConfig, MongodProcess> {
+public class MongodExecutable extends AbstractMongoExecutable<MongodConfig, MongodProcess> {
 
 	public MongodExecutable(Distribution distribution, MongodConfig mongodConfig, RuntimeConfig runtimeConfig,
 			ExtractedFileSet files) {
@@ -22,13 +22,24 @@ package de.flapdoodle.embed.mongo;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.RamDisk;
+import de.flapdoodle.embed.mongo.distribution.Feature;
 import de.flapdoodle.embed.mongo.runtime.Mongod;
+import de.flapdoodle.embed.mongo.runtime.WireProtocol;
+import de.flapdoodle.embed.mongo.util.FileUtils;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
@@ -42,13 +53,16 @@ public class MongodProcess extends AbstractMongoProcess<MongodConfig, MongodExec
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(MongodProcess.class);
 
+	private static final int SNAPSHOT_COMMAND_TIMEOUT = 30000;
+	private static final String MONGOD_LOCK_FILE = "mongod.lock";
+
 	private File dbDir;
 	private boolean dbDirIsTemp;
 
 	public MongodProcess(Distribution distribution, MongodConfig config, RuntimeConfig runtimeConfig,
 			MongodExecutable mongodExecutable) throws IOException {
 		super(distribution, config, runtimeConfig, mongodExecutable);
-
+		config.processListener().onAfterProcessStart(getStartupTimings());
 	}
 
 	@Override
@@ -62,8 +76,13 @@ public class MongodProcess extends AbstractMongoProcess<MongodConfig, MongodExec
 			if (config.replication().getDatabaseDir() != null) {
 				tmpDbDir = Files.createOrCheckDir(config.replication().getDatabaseDir());
 			} else {
-				tmpDbDir = Files.createTempDir(PropertyOrPlatformTempDir.defaultInstance(),"embedmongo-db");
+				RamDisk ramDisk = config.replication().getRamDisk();
+				tmpDbDir = ramDisk != null ? RamDiskReservations.createDbDir(ramDisk, TempDbDirReaper.dbDirPrefix()) : null;
+				if (tmpDbDir == null) {
+					tmpDbDir = Files.createTempDir(PropertyOrPlatformTempDir.defaultInstance(), TempDbDirReaper.dbDirPrefix());
+				}
 				dbDirIsTemp = true;
+				TempDbDirReaper.instance().scanOnce(tmpDbDir.getParentFile());
 			}
 			this.dbDir = tmpDbDir;
 		} catch (IOException iox) {
@@ -84,6 +103,87 @@ public class MongodProcess extends AbstractMongoProcess<MongodConfig, MongodExec
 	}
 
 
+	/**
+	 * Copies the db dir of the running process into destination, which is
+	 * created if missing. Writes are blocked with fsyncLock while the files
+	 * are copied, reads go on. The copy can be used as database dir of
+	 * another mongod. Needs mongodb 3.2 or later for fsyncUnlock.
+	 *
+	 * @return where the time went
+	 */
+	public synchronized SnapshotReport snapshotTo(Path destination) throws IOException {
+		if (dbDir == null) {
+			throw new IllegalStateException("no db dir, process not started");
+		}
+		if (!getConfig().version().enabled(Feature.FSYNC_UNLOCK)) {
+			// the lock could not be released again
+			throw new IllegalStateException("snapshotTo needs mongodb 3.2 or later, not " + getConfig().version());
+		}
+		java.nio.file.Files.createDirectories(destination);
+
+		InetAddress host = getConfig().net().getServerAddress();
+		int port = getConfig().net().getPort();
+		boolean opMsg = getConfig().version().enabled(Feature.OP_MSG);
+
+		long started = System.nanoTime();
+		runAdminCommand(host, port, opMsg, fsyncLockCommand());
+		long locked = System.nanoTime();
+
+		FileUtils.CopyReport copy;
+		try {
+			copy = FileUtils.copyDirectoryInParallel(dbDir.toPath(), destination);
+		} catch (IOException | RuntimeException ex) {
+			try {
+				runAdminCommand(host, port, opMsg, Collections.singletonMap("fsyncUnlock", 1));
+			} catch (IOException unlockFailed) {
+				ex.addSuppressed(unlockFailed);
+			}
+			throw ex;
+		}
+		long copied = System.nanoTime();
+		runAdminCommand(host, port, opMsg, Collections.singletonMap("fsyncUnlock", 1));
+		long unlocked = System.nanoTime();
+
+		markLockFileClean(destination);
+
+		SnapshotReport report = new SnapshotReport(destination, copy.getFiles(), copy.getBytes(),
+				locked - started, copied - locked, unlocked - copied);
+		LOGGER.info("snapshot of {}: {}", dbDir, report);
+		return report;
+	}
+
+	private static Map<String, Object> fsyncLockCommand() {
+		Map<String, Object> command = new LinkedHashMap<>();
+		command.put("fsync", 1);
+		command.put("lock", true);
+		return command;
+	}
+
+	/**
+	 * @param opMsg newer servers reject OP_QUERY for most commands
+	 */
+	private static void runAdminCommand(InetAddress host, int port, boolean opMsg, Map<String, ?> command) throws IOException {
+		Map<String, Object> reply = opMsg
+				? WireProtocol.runCommandWithOpMsg(host, port, "admin", command, SNAPSHOT_COMMAND_TIMEOUT)
+				: WireProtocol.runCommand(host, port, "admin", command, SNAPSHOT_COMMAND_TIMEOUT);
+		if (!WireProtocol.isOk(reply)) {
+			throw new IOException("command " + command + " failed: " + reply);
+		}
+	}
+
+	/**
+	 * the copied lock file still holds the pid of the running process, the
+	 * data was flushed, so an empty one (clean shutdown) is right for the copy
+	 */
+	private static void markLockFileClean(Path destination) throws IOException {
+		Path lockFile = destination.resolve(MONGOD_LOCK_FILE);
+		if (java.nio.file.Files.isRegularFile(lockFile)) {
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+		}
+	}
+
 	@Override
 	protected List<String> getCommandLine(Distribution distribution, MongodConfig config, ExtractedFileSet files) throws IOException {
 		return Mongod.enhanceCommandLinePlattformSpecific(distribution, Mongod.getCommandLine(getConfig(), files, dbDir));
@@ -93,8 +193,9 @@ public class MongodProcess extends AbstractMongoProcess<MongodConfig, MongodExec
 	protected void deleteTempFiles() {
 		super.deleteTempFiles();
 		
-		if ((dbDir != null) && (dbDirIsTemp) && (!Files.forceDelete(dbDir))) {
-			LOGGER.warn("Could not delete temp db dir: {}", dbDir);
+		if ((dbDir != null) && (dbDirIsTemp)) {
+			TempDbDirReaper.instance().delete(dbDir);
+			RamDiskReservations.release(dbDir);
 		}
 		
 	}
@@ -25,12 +25,11 @@ import de.flapdoodle.embed.mongo.config.MongodConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
 /**
  *
  */
-public class MongodStarter extends Starter<MongodConfig,MongodExecutable,MongodProcess> {
+public class MongodStarter extends AbstractMongoStarter<MongodConfig,MongodExecutable,MongodProcess> {
 
 	private MongodStarter(RuntimeConfig config) {
 		super(config);
@@ -26,12 +26,11 @@ import de.flapdoodle.embed.mongo.config.MongosConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Executable;
 
 /**
  *
  */
-public class MongosExecutable extends Executable<MongosConfig, MongosProcess> {
+public class MongosExecutable extends AbstractMongoExecutable<MongosConfig, MongosProcess> {
 
 	public MongosExecutable(Distribution distribution, MongosConfig mongodConfig, RuntimeConfig runtimeConfig,
 			ExtractedFileSet files) {
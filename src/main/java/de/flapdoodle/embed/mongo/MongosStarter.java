@@ -25,12 +25,11 @@ import de.flapdoodle.embed.mongo.config.MongosConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.distribution.Distribution;
 import de.flapdoodle.embed.process.extract.ExtractedFileSet;
-import de.flapdoodle.embed.process.runtime.Starter;
 
 /**
  *
  */
-public class MongosStarter extends Starter<MongosConfig,MongosExecutable,MongosProcess> {
+public class MongosStarter extends AbstractMongoStarter<MongosConfig,MongosExecutable,MongosProcess> {
 
 	private MongosStarter(RuntimeConfig config) {
 		super(config);
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.Distribution;
+
+/**
+ * Like {@link Paths}, but the file set holds the executables of other
+ * commands from the same archive too (as library files), so one pass over
+ * the archive extracts all of them.
+ */
+public class MultiCommandPaths extends Paths {
+
+	private final Command command;
+	private final Set<Command> commands;
+
+	public MultiCommandPaths(Command command, Collection<Command> extractTogether) {
+		super(command);
+		this.command = command;
+		Set<Command> all = new LinkedHashSet<>();
+		all.add(command);
+		all.addAll(extractTogether);
+		this.commands = Collections.unmodifiableSet(all);
+	}
+
+	/**
+	 * @return the main command first
+	 */
+	public Set<Command> commands() {
+		return commands;
+	}
+
+	@Override
+	public FileSet getFileSet(Distribution distribution) {
+		FileSet.Builder builder = FileSet.builder().addEntry(FileType.Executable, executableFileName(command, distribution));
+		for (Command other : commands) {
+			if (other != command) {
+				builder.addEntry(FileType.Library, executableFileName(other, distribution));
+			}
+		}
+		return builder.build();
+	}
+}
@@ -49,21 +49,21 @@ public class Paths implements PackageResolver {
 	}
 
 	public FileSet getFileSet(Distribution distribution) {
-		String executableFileName;
+		return FileSet.builder().addEntry(FileType.Executable, executableFileName(command, distribution)).build();
+	}
+
+	protected static String executableFileName(Command command, Distribution distribution) {
 		switch (distribution.platform()) {
 			case Linux:
 			case OS_X:
 			case Solaris:
 			case FreeBSD:
-				executableFileName = command.commandName();
-				break;
+				return command.commandName();
 			case Windows:
-				executableFileName = command.commandName()+".exe";
-				break;
+				return command.commandName()+".exe";
 			default:
 				throw new IllegalArgumentException("Unknown Platform " + distribution.platform());
 		}
-		return FileSet.builder().addEntry(FileType.Executable, executableFileName).build();
 	}
 
 	//CHECKSTYLE:OFF
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.config.RamDisk;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+
+/**
+ * Keeps track of the budget of all temporary db dirs on RAM disks in this
+ * JVM. Data already written by running instances is taken from the free
+ * space, so only the part of each budget not used yet is subtracted.
+ */
+final class RamDiskReservations {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RamDiskReservations.class);
+
+	private static final Map<File, Long> RESERVED = new LinkedHashMap<>();
+
+	private RamDiskReservations() {
+		// no instance
+	}
+
+	/**
+	 * @return a new temp dir on the ram disk, null if the budget does not fit
+	 */
+	static synchronized File createDbDir(RamDisk ramDisk, String prefix) {
+		Path location = Paths.get(ramDisk.getLocation());
+		if (!Files.isDirectory(location) || !Files.isWritable(location)) {
+			LOGGER.warn("ram disk {} is not a writable directory, using disk for the db dir", location);
+			return null;
+		}
+		try {
+			String type = Files.getFileStore(location).type();
+			if (!"tmpfs".equals(type) && !"ramfs".equals(type)) {
+				LOGGER.info("ram disk {} is of type {}, which may not be RAM backed", location, type);
+			}
+			long usable = Files.getFileStore(location).getUsableSpace();
+			long outstanding = outstandingBudget();
+			if (usable - outstanding < ramDisk.getBudgetInBytes()) {
+				LOGGER.warn("not enough space on ram disk {} ({} bytes free, {} bytes promised to running instances, {} bytes needed), using disk for the db dir",
+						location, usable, outstanding, ramDisk.getBudgetInBytes());
+				return null;
+			}
+			File dbDir = de.flapdoodle.embed.process.io.file.Files.createTempDir(new FixedPath(ramDisk.getLocation()), prefix);
+			RESERVED.put(dbDir, ramDisk.getBudgetInBytes());
+			return dbDir;
+		} catch (IOException iox) {
+			LOGGER.warn("could not use ram disk {}, using disk for the db dir", location, iox);
+			return null;
+		}
+	}
+
+	static synchronized void release(File dbDir) {
+		RESERVED.remove(dbDir);
+	}
+
+	private static long outstandingBudget() {
+		long outstanding = 0;
+		for (Map.Entry<File, Long> entry : RESERVED.entrySet()) {
+			outstanding += Math.max(0, entry.getValue() - sizeOf(entry.getKey().toPath()));
+		}
+		return outstanding;
+	}
+
+	private static long sizeOf(Path dir) {
+		try (Stream<Path> files = Files.walk(dir)) {
+			return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+		} catch (IOException | RuntimeException e) {
+			return 0;
+		}
+	}
+}
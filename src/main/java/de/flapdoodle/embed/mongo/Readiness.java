@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How and how fast a started process was found to be ready.
+ */
+public final class Readiness {
+
+	public enum Source {
+		/**
+		 * the success message showed up in the process output
+		 */
+		LOG,
+		/**
+		 * the readiness probe got an answer from the server
+		 */
+		PROBE
+	}
+
+	private final Source source;
+	private final long latencyNanos;
+
+	Readiness(Source source, long latencyNanos) {
+		this.source = source;
+		this.latencyNanos = latencyNanos;
+	}
+
+	public Source getSource() {
+		return source;
+	}
+
+	/**
+	 * @return time between process spawn and readiness
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "Readiness{source=" + source + ", latency=" + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms}";
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long an online snapshot took and how long writes were blocked for it.
+ */
+public final class SnapshotReport {
+
+	private final Path destination;
+	private final int files;
+	private final long bytes;
+	private final long lockNanos;
+	private final long copyNanos;
+	private final long unlockNanos;
+
+	SnapshotReport(Path destination, int files, long bytes, long lockNanos, long copyNanos, long unlockNanos) {
+		this.destination = destination;
+		this.files = files;
+		this.bytes = bytes;
+		this.lockNanos = lockNanos;
+		this.copyNanos = copyNanos;
+		this.unlockNanos = unlockNanos;
+	}
+
+	public Path getDestination() {
+		return destination;
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return time to flush and lock the server
+	 */
+	public long getLockNanos() {
+		return lockNanos;
+	}
+
+	public long getCopyNanos() {
+		return copyNanos;
+	}
+
+	public long getUnlockNanos() {
+		return unlockNanos;
+	}
+
+	/**
+	 * @return time between the lock and the unlock, writes wait that long
+	 */
+	public long getWritesBlockedNanos() {
+		return copyNanos + unlockNanos;
+	}
+
+	public long getElapsedNanos() {
+		return lockNanos + copyNanos + unlockNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "SnapshotReport{destination=" + destination + ", files=" + files + ", bytes=" + bytes
+				+ ", lock=" + TimeUnit.NANOSECONDS.toMillis(lockNanos) + "ms"
+				+ ", copy=" + TimeUnit.NANOSECONDS.toMillis(copyNanos) + "ms"
+				+ ", unlock=" + TimeUnit.NANOSECONDS.toMillis(unlockNanos) + "ms}";
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time to start a process went, as a timeline of phases measured
+ * with {@link System#nanoTime()}.
+ */
+public final class StartupTimings {
+
+	public enum Phase {
+		/**
+		 * waiting for another process (or thread) preparing the same distribution
+		 */
+		ARTIFACT_LOCK,
+		/**
+		 * downloading the distribution, missing if it was already in the artifact store
+		 */
+		DOWNLOAD,
+		/**
+		 * extracting the executables (or finding them extracted) and copying them
+		 */
+		EXTRACTION,
+		/**
+		 * creating and filling the db dir, building the command line
+		 */
+		DB_DIR,
+		/**
+		 * starting the process
+		 */
+		SPAWN,
+		/**
+		 * waiting for the process to be ready
+		 */
+		READY
+	}
+
+	private static final ThreadLocal<List<Span>> PREPARATION = new ThreadLocal<>();
+
+	private final List<Span> spans;
+
+	StartupTimings(List<Span> spans) {
+		this.spans = Collections.unmodifiableList(new ArrayList<>(spans));
+	}
+
+	/**
+	 * @return all recorded phases in the order they happened
+	 */
+	public List<Span> spans() {
+		return spans;
+	}
+
+	/**
+	 * @return time spent in this phase, 0 if it was not recorded
+	 */
+	public long durationNanos(Phase phase) {
+		long sum = 0;
+		for (Span span : spans) {
+			if (span.phase() == phase) {
+				sum += span.durationNanos();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return time from the start of the first to the end of the last phase
+	 */
+	public long totalNanos() {
+		if (spans.isEmpty()) {
+			return 0;
+		}
+		return spans.get(spans.size() - 1).endNanos() - spans.get(0).startNanos();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("StartupTimings{");
+		for (Span span : spans) {
+			sb.append(span.phase()).append('=').append(TimeUnit.NANOSECONDS.toMillis(span.durationNanos())).append("ms, ");
+		}
+		return sb.append("total=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos())).append("ms}").toString();
+	}
+
+	/**
+	 * Records a phase for the executable which is currently prepared by a
+	 * starter on this thread, does nothing otherwise.
+	 */
+	public static void record(Phase phase, long startNanos, long endNanos) {
+		List<Span> preparation = PREPARATION.get();
+		if (preparation != null) {
+			preparation.add(new Span(phase, startNanos, endNanos));
+		}
+	}
+
+	static List<Span> beginPreparation(List<Span> spans) {
+		List<Span> outer = PREPARATION.get();
+		PREPARATION.set(spans);
+		return outer;
+	}
+
+	static void endPreparation(List<Span> outer) {
+		if (outer != null) {
+			PREPARATION.set(outer);
+		} else {
+			PREPARATION.remove();
+		}
+	}
+
+	public static final class Span {
+
+		private final Phase phase;
+		private final long startNanos;
+		private final long endNanos;
+
+		Span(Phase phase, long startNanos, long endNanos) {
+			this.phase = phase;
+			this.startNanos = startNanos;
+			this.endNanos = endNanos;
+		}
+
+		public Phase phase() {
+			return phase;
+		}
+
+		public long startNanos() {
+			return startNanos;
+		}
+
+		public long endNanos() {
+			return endNanos;
+		}
+
+		public long durationNanos() {
+			return endNanos - startNanos;
+		}
+
+		@Override
+		public String toString() {
+			return phase + "[" + startNanos + ".." + endNanos + "]";
+		}
+	}
+}
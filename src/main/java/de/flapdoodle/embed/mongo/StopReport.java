@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How and how fast a process was stopped.
+ */
+public final class StopReport {
+
+	public enum Step {
+		/**
+		 * the process was gone before it was asked to stop
+		 */
+		ALREADY_EXITED,
+		/**
+		 * the process exited after the shutdown command
+		 */
+		SHUTDOWN_COMMAND,
+		/**
+		 * the process exited after a kill signal
+		 */
+		KILL,
+		/**
+		 * the process exited after a forced kill
+		 */
+		FORCED_KILL,
+		/**
+		 * nothing else worked, the process was destroyed
+		 */
+		DESTROY
+	}
+
+	private final Step step;
+	private final long latencyNanos;
+
+	StopReport(Step step, long latencyNanos) {
+		this.step = step;
+		this.latencyNanos = latencyNanos;
+	}
+
+	/**
+	 * @return the escalation step which stopped the process
+	 */
+	public Step getStep() {
+		return step;
+	}
+
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "StopReport{step=" + step + ", latency=" + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms}";
+	}
+}
@@ -0,0 +1,315 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes temporary db dirs in the background. A stopped process only
+ * renames its db dir, the files are deleted on a daemon thread. Dirs left
+ * behind by crashed jvms are found by the pid in their name (and the pid
+ * in mongod.lock) and deleted at a limited rate.
+ */
+final class TempDbDirReaper {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TempDbDirReaper.class);
+
+	static final String PREFIX = "embedmongo-db";
+	static final String TRASH_SUFFIX = ".trash";
+
+	private static final Pattern OWNED = Pattern.compile(Pattern.quote(PREFIX)
+			+ "-(\\d+)-[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}(" + Pattern.quote(TRASH_SUFFIX) + ")?");
+	private static final String MONGOD_LOCK_FILE = "mongod.lock";
+
+	private static final long DEFAULT_BYTES_PER_SECOND = 64L << 20;
+	private static final long DEFAULT_BYTES_PER_SCAN = 4L << 30;
+	private static final long DEFAULT_MIN_AGE_IN_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+	private static final long CURRENT_PID = currentPid();
+	private static final TempDbDirReaper INSTANCE = new TempDbDirReaper(DEFAULT_BYTES_PER_SECOND,
+			DEFAULT_BYTES_PER_SCAN, DEFAULT_MIN_AGE_IN_MILLIS);
+
+	private final long bytesPerSecond;
+	private final long bytesPerScan;
+	private final long minAgeInMillis;
+	private final Set<File> scanned = ConcurrentHashMap.newKeySet();
+	private final ExecutorService deleter = daemonExecutor("embedmongo-db-reaper");
+	private final ExecutorService scanner = daemonExecutor("embedmongo-orphan-reaper");
+
+	/**
+	 * @param minAgeInMillis dirs without an owner pid in the name are left alone until they are that old
+	 */
+	TempDbDirReaper(long bytesPerSecond, long bytesPerScan, long minAgeInMillis) {
+		this.bytesPerSecond = bytesPerSecond;
+		this.bytesPerScan = bytesPerScan;
+		this.minAgeInMillis = minAgeInMillis;
+	}
+
+	static TempDbDirReaper instance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return prefix for temp db dirs, with the pid of this jvm as owner
+	 */
+	static String dbDirPrefix() {
+		return CURRENT_PID > 0 ? PREFIX + "-" + CURRENT_PID : PREFIX;
+	}
+
+	/**
+	 * renames the dir and deletes it in the background, deletes it right
+	 * away if it can not be renamed
+	 */
+	Future<?> delete(File dbDir) {
+		File trash = new File(dbDir.getParentFile(), dbDir.getName() + TRASH_SUFFIX);
+		try {
+			Files.move(dbDir.toPath(), trash.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException ex) {
+			LOGGER.debug("could not rename {}, deleting in place", dbDir, ex);
+			if (!de.flapdoodle.embed.process.io.file.Files.forceDelete(dbDir)) {
+				LOGGER.warn("Could not delete temp db dir: {}", dbDir);
+			}
+			return CompletableFuture.completedFuture(null);
+		}
+		return deleter.submit(() -> {
+			if (!de.flapdoodle.embed.process.io.file.Files.forceDelete(trash)) {
+				LOGGER.warn("Could not delete temp db dir: {}", trash);
+			}
+		});
+	}
+
+	/**
+	 * reaps orphans in parent in the background, once per parent and jvm
+	 */
+	void scanOnce(File parent) {
+		if (parent != null && scanned.add(parent.getAbsoluteFile())) {
+			scanner.execute(() -> {
+				Result result = reapOrphans(parent);
+				if (result.getDirs() > 0) {
+					LOGGER.info("removed temp db dirs of dead processes in {}: {}", parent, result);
+				}
+			});
+		}
+	}
+
+	/**
+	 * deletes dirs no living process owns, oldest first, until the bytes
+	 * per scan are used up, at no more than bytes per second
+	 */
+	Result reapOrphans(File parent) {
+		long started = System.nanoTime();
+		File[] candidates = parent.listFiles(file -> file.isDirectory() && file.getName().startsWith(PREFIX));
+		Budget budget = new Budget(bytesPerSecond, bytesPerScan);
+		int dirs = 0;
+		if (candidates != null) {
+			Arrays.sort(candidates, Comparator.comparingLong(File::lastModified));
+			long now = System.currentTimeMillis();
+			for (File candidate : candidates) {
+				if (budget.exhausted() || Thread.currentThread().isInterrupted()) {
+					break;
+				}
+				if (isOrphan(candidate, now)) {
+					try {
+						if (deleteWithin(candidate.toPath(), budget)) {
+							dirs++;
+						}
+					} catch (IOException ex) {
+						LOGGER.warn("could not delete orphaned temp db dir {}", candidate, ex);
+					}
+				}
+			}
+		}
+		return new Result(dirs, budget.consumed, System.nanoTime() - started);
+	}
+
+	boolean isOrphan(File dir, long now) {
+		Optional<Long> owner = ownerPid(dir.getName());
+		if (owner.isPresent() && (owner.get() == CURRENT_PID || isAlive(owner.get()))) {
+			return false;
+		}
+		Optional<Long> mongod = lockPid(dir);
+		if (mongod.isPresent() && isAlive(mongod.get())) {
+			return false;
+		}
+		// no owner in the name: maybe just created by an older version, mongod not started yet
+		return owner.isPresent() || now - dir.lastModified() >= minAgeInMillis;
+	}
+
+	static Optional<Long> ownerPid(String dirName) {
+		Matcher matcher = OWNED.matcher(dirName);
+		return matcher.matches() ? Optional.of(Long.parseLong(matcher.group(1))) : Optional.empty();
+	}
+
+	private static Optional<Long> lockPid(File dir) {
+		try {
+			String content = new String(Files.readAllBytes(new File(dir, MONGOD_LOCK_FILE).toPath()),
+					StandardCharsets.US_ASCII).trim();
+			return content.isEmpty() ? Optional.empty() : Optional.of(Long.parseLong(content));
+		} catch (IOException | NumberFormatException ex) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return false only if the process is known to be gone
+	 */
+	static boolean isAlive(long pid) {
+		try {
+			// ProcessHandle is java 9+
+			Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+			Method of = processHandle.getMethod("of", long.class);
+			Optional<?> handle = (Optional<?>) of.invoke(null, pid);
+			return handle.isPresent() && (Boolean) processHandle.getMethod("isAlive").invoke(handle.get());
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			File proc = new File("/proc");
+			return !proc.isDirectory() || new File(proc, String.valueOf(pid)).exists();
+		}
+	}
+
+	private static boolean deleteWithin(Path dir, Budget budget) throws IOException {
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return budget.consume(attrs.size()) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path subDir, IOException exc) throws IOException {
+				if (exc != null) {
+					throw exc;
+				}
+				Files.delete(subDir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return !Files.exists(dir);
+	}
+
+	private static long currentPid() {
+		// pid@host
+		String name = ManagementFactory.getRuntimeMXBean().getName();
+		try {
+			return Long.parseLong(name.substring(0, name.indexOf('@')));
+		} catch (RuntimeException ex) {
+			return -1;
+		}
+	}
+
+	private static ExecutorService daemonExecutor(String name) {
+		return Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	private static final class Budget {
+		private final long bytesPerSecond;
+		private final long maxBytes;
+		private final long started = System.nanoTime();
+		private long consumed;
+
+		private Budget(long bytesPerSecond, long maxBytes) {
+			this.bytesPerSecond = bytesPerSecond;
+			this.maxBytes = maxBytes;
+		}
+
+		/**
+		 * waits until the rate allows the bytes
+		 *
+		 * @return false if there is no budget left or the thread was interrupted
+		 */
+		private boolean consume(long bytes) {
+			consumed += bytes;
+			long due = started + (long) (consumed * (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				} catch (InterruptedException ix) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return !exhausted();
+		}
+
+		private boolean exhausted() {
+			return consumed >= maxBytes;
+		}
+	}
+
+	/**
+	 * What a scan for orphans removed.
+	 */
+	static final class Result {
+		private final int dirs;
+		private final long bytes;
+		private final long elapsedNanos;
+
+		Result(int dirs, long bytes, long elapsedNanos) {
+			this.dirs = dirs;
+			this.bytes = bytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		int getDirs() {
+			return dirs;
+		}
+
+		long getBytes() {
+			return bytes;
+		}
+
+		@Override
+		public String toString() {
+			return "Result{dirs=" + dirs + ", bytes=" + bytes + ", elapsed="
+					+ TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+		}
+	}
+}
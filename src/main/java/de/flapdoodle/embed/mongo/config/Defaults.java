@@ -20,13 +20,29 @@
  */
 package de.flapdoodle.embed.mongo.config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import de.flapdoodle.embed.mongo.Command;
 import de.flapdoodle.embed.mongo.Paths;
+import de.flapdoodle.embed.mongo.store.ArtifactStorePruner;
+import de.flapdoodle.embed.mongo.store.ChecksumSource;
+import de.flapdoodle.embed.mongo.store.LockingArtifactStore;
+import de.flapdoodle.embed.mongo.store.MultiCommandArtifactStore;
+import de.flapdoodle.embed.mongo.store.PageCacheWarmUp;
+import de.flapdoodle.embed.mongo.store.RangedParallelDownloader;
+import de.flapdoodle.embed.mongo.store.ResumableDownloader;
+import de.flapdoodle.embed.mongo.store.StreamingArtifactStore;
+import de.flapdoodle.embed.mongo.store.VerifyingArtifactStore;
+import de.flapdoodle.embed.mongo.store.WarmingArtifactStore;
 import de.flapdoodle.embed.process.config.ImmutableRuntimeConfig;
 import de.flapdoodle.embed.process.config.RuntimeConfig;
 import de.flapdoodle.embed.process.config.store.DistributionDownloadPath;
@@ -45,27 +61,172 @@ import de.flapdoodle.embed.process.io.directories.UserHome;
 import de.flapdoodle.embed.process.io.progress.Slf4jProgressListener;
 import de.flapdoodle.embed.process.io.progress.StandardConsoleProgressListener;
 import de.flapdoodle.embed.process.runtime.CommandLinePostProcessor;
+import de.flapdoodle.embed.process.store.Downloader;
 import de.flapdoodle.embed.process.store.ExtractedArtifactStore;
+import de.flapdoodle.embed.process.store.IArtifactStore;
 import de.flapdoodle.embed.process.store.ImmutableExtractedArtifactStore;
-import de.flapdoodle.embed.process.store.UrlConnectionDownloader;
 
 public abstract class Defaults {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(Defaults.class);
+
+	private static final ChecksumSource PUBLISHED_CHECKSUMS = ChecksumSource.published();
+	private static final AtomicBoolean PRUNED = new AtomicBoolean();
+
 	public static ImmutableExtractedArtifactStore extractedArtifactStoreFor(Command command) {
 		return ExtractedArtifactStore.builder()
 				.downloadConfig(Defaults.downloadConfigFor(command).build())
-				.downloader(new UrlConnectionDownloader())
-				.extraction(DirectoryAndExecutableNaming.builder()
-						.directory(new UserHome(".embedmongo/extracted"))
-						.executableNaming(new NoopTempNaming())
-						.build())
-				.temp(DirectoryAndExecutableNaming.builder()
-						.directory(new PropertyOrPlatformTempDir())
-						.executableNaming(new UUIDTempNaming())
-						.build())
+				.downloader(downloader())
+				.extraction(extraction())
+				.temp(temp())
+				.build();
+	}
+
+	/**
+	 * download, gunzip and untar in one pass, see {@link StreamingArtifactStore}
+	 * 
+	 * @param teeToArtifactStore keep the archive in the artifact store too
+	 */
+	public static IArtifactStore streamingArtifactStoreFor(Command command, boolean teeToArtifactStore) {
+		DownloadConfig downloadConfig = Defaults.downloadConfigFor(command).build();
+		return locking(new StreamingArtifactStore(downloadConfig, extraction(), temp(), teeToArtifactStore, checksumSource(),
+				verifyingCached(extractedArtifactStoreFor(command), downloadConfig)), downloadConfig);
+	}
+
+	/**
+	 * extracts the executables of all given commands with the first start, see {@link MultiCommandArtifactStore}
+	 */
+	public static IArtifactStore multiCommandArtifactStoreFor(Command command, Command... extractTogether) {
+		return multiCommandArtifactStoreFor(Defaults.downloadConfigFor(command).build(), command, extractTogether);
+	}
+
+	public static IArtifactStore multiCommandArtifactStoreFor(DownloadConfig downloadConfig, Command command, Command... extractTogether) {
+		return locking(verifyingCached(new MultiCommandArtifactStore(command, Arrays.asList(extractTogether), downloadConfig,
+				downloader(), extraction(), temp()), downloadConfig), downloadConfig);
+	}
+
+	private static DirectoryAndExecutableNaming extraction() {
+		return DirectoryAndExecutableNaming.builder()
+				.directory(new UserHome(".embedmongo/extracted"))
+				.executableNaming(new NoopTempNaming())
+				.build();
+	}
+
+	private static DirectoryAndExecutableNaming temp() {
+		return DirectoryAndExecutableNaming.builder()
+				.directory(new PropertyOrPlatformTempDir())
+				.executableNaming(new UUIDTempNaming())
 				.build();
 	}
 	
+	/**
+	 * single connection download, resumed if a previous one was interrupted, unless EMBEDDED_MONGO_DOWNLOAD_CONNECTIONS is set to more than one
+	 */
+	public static Downloader downloader() {
+		return downloader(System.getenv());
+	}
+
+	/**
+	 * @see RangedParallelDownloader
+	 */
+	public static Downloader parallelDownloader(int connections) {
+		return new TimedDownloader(new RangedParallelDownloader(connections, RangedParallelDownloader.DEFAULT_MIN_CHUNK_SIZE, checksumSource()));
+	}
+
+	/**
+	 * the .sha256 files published next to the archives
+	 */
+	public static ChecksumSource checksumSource() {
+		return PUBLISHED_CHECKSUMS;
+	}
+
+	/**
+	 * verifies a cached archive with {@link #checksumSource()} on first use
+	 */
+	public static IArtifactStore verifying(IArtifactStore artifactStore, DownloadConfig downloadConfig) {
+		return new VerifyingArtifactStore(artifactStore, downloadConfig, checksumSource());
+	}
+
+	/**
+	 * archives are verified while they are downloaded, checking archives already in the
+	 * artifact store needs the checksum from the network, so only if EMBEDDED_MONGO_VERIFY_CACHED=true
+	 */
+	private static IArtifactStore verifyingCached(IArtifactStore artifactStore, DownloadConfig downloadConfig) {
+		return Boolean.parseBoolean(System.getenv("EMBEDDED_MONGO_VERIFY_CACHED"))
+				? verifying(artifactStore, downloadConfig)
+				: artifactStore;
+	}
+
+	/**
+	 * one process at a time downloads and extracts a distribution, see {@link LockingArtifactStore}
+	 */
+	public static IArtifactStore locking(IArtifactStore artifactStore, DownloadConfig downloadConfig) {
+		return new LockingArtifactStore(artifactStore, downloadConfig);
+	}
+
+	/**
+	 * evicts least recently used artifacts, limited by EMBEDDED_MONGO_ARTIFACTS_MAX_SIZE (bytes, or with k, m or g)
+	 * and EMBEDDED_MONGO_ARTIFACTS_MAX_AGE_DAYS, unlimited if not set
+	 */
+	public static ArtifactStorePruner artifactStorePruner() {
+		return artifactStorePruner(System.getenv());
+	}
+
+	protected static ArtifactStorePruner artifactStorePruner(Map<String, String> env) {
+		long maxSize = Optional.ofNullable(env.get("EMBEDDED_MONGO_ARTIFACTS_MAX_SIZE"))
+				.map(Defaults::bytes)
+				.orElse(ArtifactStorePruner.UNLIMITED);
+		long maxAge = Optional.ofNullable(env.get("EMBEDDED_MONGO_ARTIFACTS_MAX_AGE_DAYS"))
+				.map(days -> TimeUnit.DAYS.toMillis(Long.parseLong(days.trim())))
+				.orElse(ArtifactStorePruner.UNLIMITED);
+		return new ArtifactStorePruner(DownloadConfigDefaults.defaultArtifactStoreLocation(env).asFile(),
+				extraction().getDirectory().asFile(), maxSize, maxAge);
+	}
+
+	private static long bytes(String size) {
+		String value = size.trim().toLowerCase();
+		int shift = value.endsWith("k") ? 10 : value.endsWith("m") ? 20 : value.endsWith("g") ? 30 : 0;
+		return Long.parseLong(shift > 0 ? value.substring(0, value.length() - 1) : value) << shift;
+	}
+
+	/**
+	 * prunes in the background, once per jvm, if a limit is set
+	 */
+	private static void pruneOnStartup() {
+		Map<String, String> env = System.getenv();
+		if ((env.containsKey("EMBEDDED_MONGO_ARTIFACTS_MAX_SIZE") || env.containsKey("EMBEDDED_MONGO_ARTIFACTS_MAX_AGE_DAYS"))
+				&& PRUNED.compareAndSet(false, true)) {
+			Thread pruner = new Thread(() -> artifactStorePruner(env).prune(), "embedmongo-artifact-pruner");
+			pruner.setDaemon(true);
+			pruner.start();
+		}
+	}
+
+	/**
+	 * loads the extracted executables into the page cache in the background, see {@link PageCacheWarmUp};
+	 * only for a store which hands out the extracted files themselves, the default stores copy them to
+	 * the temp dir first, and that copy is in the page cache already
+	 */
+	public static IArtifactStore warmingUp(IArtifactStore artifactStore) {
+		return new WarmingArtifactStore(artifactStore);
+	}
+
+	protected static Downloader downloader(Map<String, String> env) {
+		int connections = 1;
+		String value = env.get("EMBEDDED_MONGO_DOWNLOAD_CONNECTIONS");
+		if (value != null) {
+			try {
+				connections = Integer.parseInt(value.trim());
+			} catch (NumberFormatException nfx) {
+				LOGGER.warn("EMBEDDED_MONGO_DOWNLOAD_CONNECTIONS is not a number: '{}', downloading with one connection", value);
+			}
+		}
+		if (connections > 1) {
+			return parallelDownloader(connections);
+		}
+		return new TimedDownloader(new ResumableDownloader(checksumSource()));
+	}
+
 	public static ImmutableDownloadConfig.Builder downloadConfigFor(Command command) {
 		return DownloadConfigDefaults.defaultsForCommand(command);
 	}
@@ -82,13 +243,28 @@ public abstract class Defaults {
 		protected static ImmutableDownloadConfig.Builder withDefaults() {
 			return DownloadConfig.builder()
 					.fileNaming(new UUIDTempNaming())
-					.downloadPath(new PlatformDependentDownloadPath())
+					.downloadPath(downloadPath(System.getenv()))
 					.progressListener(new StandardConsoleProgressListener())
 					.artifactStorePath(defaultArtifactStoreLocation())
 					.downloadPrefix("embedmongo-download")
 					.userAgent("Mozilla/5.0 (compatible; Embedded MongoDB; +https://github.com/flapdoodle-oss/embedmongo.flapdoodle.de)");
 		}
 		
+		/**
+		 * upstream, unless EMBEDDED_MONGO_MIRROR_DIR (a local directory) or EMBEDDED_MONGO_MIRROR_URL (an intranet mirror)
+		 * is set, see {@link MirroredDownloadPath}
+		 */
+		protected static DistributionDownloadPath downloadPath(Map<String, String> env) {
+			List<DistributionDownloadPath> mirrors = new ArrayList<>();
+			Optional.ofNullable(env.get("EMBEDDED_MONGO_MIRROR_DIR")).map(MirroredDownloadPath::mirror).ifPresent(mirrors::add);
+			Optional.ofNullable(env.get("EMBEDDED_MONGO_MIRROR_URL")).map(MirroredDownloadPath::mirror).ifPresent(mirrors::add);
+			if (mirrors.isEmpty()) {
+				return new PlatformDependentDownloadPath();
+			}
+			// the archive path does not depend on the command
+			return new MirroredDownloadPath(packageResolver(Command.MongoD), mirrors, new PlatformDependentDownloadPath());
+		}
+
 		public static PackageResolver packageResolver(Command command) {
 			return new Paths(command);
 		}
@@ -137,14 +313,19 @@ public abstract class Defaults {
 					.build();
 			return defaults(command)
 				.processOutput(MongodProcessOutputConfig.getInstance(command, logger))
-				.artifactStore(Defaults.extractedArtifactStoreFor(command).withDownloadConfig(downloadConfig));
+				.artifactStore(guarded(Defaults.extractedArtifactStoreFor(command).withDownloadConfig(downloadConfig), downloadConfig));
 		}
 		
+		private static IArtifactStore guarded(IArtifactStore artifactStore, DownloadConfig downloadConfig) {
+			Defaults.pruneOnStartup();
+			return Defaults.locking(Defaults.verifyingCached(artifactStore, downloadConfig), downloadConfig);
+		}
+
 		protected static ImmutableRuntimeConfig.Builder defaults(Command command) {
 			return RuntimeConfig.builder()
 			.processOutput(MongodProcessOutputConfig.getDefaultInstance(command))
 			.commandLinePostProcessor(new CommandLinePostProcessor.Noop())
-			.artifactStore(Defaults.extractedArtifactStoreFor(command));
+			.artifactStore(guarded(Defaults.extractedArtifactStoreFor(command), Defaults.downloadConfigFor(command).build()));
 		}
 	}
 }
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.store.Downloads;
+import de.flapdoodle.embed.process.config.store.DistributionDownloadPath;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.PackageResolver;
+import de.flapdoodle.embed.process.distribution.Distribution;
+
+/**
+ * Tries the mirrors in order and uses the first one which has the archive
+ * of a distribution (same layout as upstream, see
+ * {@link de.flapdoodle.embed.mongo.Paths#getPath}), the upstream path
+ * otherwise. A {@code file:} mirror is checked on disk, an http mirror with
+ * a short HEAD request, which uses the proxy and user agent of the download
+ * config if it is resolved with {@link #getPath(DownloadConfig, Distribution)}
+ * (as the downloaders of this project do). The result is kept per distribution,
+ * so only the first download of a distribution pays for the lookup.
+ */
+public class MirroredDownloadPath implements DistributionDownloadPath {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MirroredDownloadPath.class);
+
+	static final int PROBE_TIMEOUT = 2000;
+
+	private final PackageResolver packageResolver;
+	private final List<DistributionDownloadPath> mirrors;
+	private final DistributionDownloadPath upstream;
+	private final ConcurrentMap<Distribution, String> resolved = new ConcurrentHashMap<>();
+
+	public MirroredDownloadPath(PackageResolver packageResolver, List<DistributionDownloadPath> mirrors, DistributionDownloadPath upstream) {
+		this.packageResolver = packageResolver;
+		this.mirrors = Collections.unmodifiableList(new ArrayList<>(mirrors));
+		this.upstream = upstream;
+	}
+
+	/**
+	 * @param path a local directory or an url
+	 */
+	public static DistributionDownloadPath mirror(String path) {
+		String base = path.contains("://") || path.startsWith("file:") ? path : new File(path).toURI().toString();
+		String withSlash = base.endsWith("/") ? base : base + "/";
+		return __ -> withSlash;
+	}
+
+	@Override
+	public String getPath(Distribution distribution) {
+		return resolved.computeIfAbsent(distribution, it -> resolve(it, url -> new URL(url).openConnection()));
+	}
+
+	/**
+	 * same as {@link #getPath(Distribution)}, but http mirrors are probed with the
+	 * proxy and user agent of runtime
+	 */
+	public String getPath(DownloadConfig runtime, Distribution distribution) {
+		return resolved.computeIfAbsent(distribution, it -> resolve(it, url -> Downloads.open(runtime, new URL(url))));
+	}
+
+	private String resolve(Distribution distribution, Connector connector) {
+		String archivePath = packageResolver.packageFor(distribution).archivePath();
+		for (DistributionDownloadPath mirror : mirrors) {
+			String path = mirror.getPath(distribution);
+			if (has(path + archivePath, connector)) {
+				LOGGER.info("download {} from mirror {}", distribution, path);
+				return path;
+			}
+		}
+		return upstream.getPath(distribution);
+	}
+
+	private static boolean has(String url, Connector connector) {
+		try {
+			if (url.startsWith("file:")) {
+				return new File(URI.create(url)).isFile();
+			}
+			URLConnection connection = connector.open(url);
+			connection.setConnectTimeout(PROBE_TIMEOUT);
+			connection.setReadTimeout(PROBE_TIMEOUT);
+			if (connection instanceof HttpURLConnection) {
+				HttpURLConnection http = (HttpURLConnection) connection;
+				http.setRequestMethod("HEAD");
+				try {
+					return http.getResponseCode() == HttpURLConnection.HTTP_OK;
+				} finally {
+					http.disconnect();
+				}
+			}
+			connection.getInputStream().close();
+			return true;
+		} catch (IOException | IllegalArgumentException ex) {
+			LOGGER.debug("{} not available: {}", url, ex.toString());
+			return false;
+		}
+	}
+
+	private interface Connector {
+		URLConnection open(String url) throws IOException;
+	}
+}
@@ -25,6 +25,9 @@ import java.util.Optional;
 import org.immutables.value.Value.Default;
 import org.immutables.value.Value.Immutable;
 
+import de.flapdoodle.embed.mongo.distribution.Feature;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+
 @Immutable
 public interface MongoCmdOptions {
 	
@@ -75,6 +78,47 @@ public interface MongoCmdOptions {
 		return false;
 	}
 
+	/**
+	 * only used with wiredTiger
+	 */
+	Optional<Double> wiredTigerCacheSizeGB();
+
+	/**
+	 * full time diagnostic data capture (ftdc)
+	 */
+	@Default
+	default boolean diagnosticDataCollectionEnabled() {
+		return true;
+	}
+
+	@Default
+	default boolean ttlMonitorEnabled() {
+		return true;
+	}
+
+	/**
+	 * Options for small, short lived test instances: mmapv1 flags only where
+	 * mmapv1 is the default, the smallest wiredTiger cache, no diagnostic data
+	 * collection, no ttl monitor (enable it again if your tests need it),
+	 * no journal and no periodic flush. Replica set members still get a
+	 * journal where it is required.
+	 */
+	static MongoCmdOptions fastTestProfile(IFeatureAwareVersion version) {
+		boolean wiredTiger = version.enabled(Feature.WIRED_TIGER_DEFAULT);
+		ImmutableMongoCmdOptions.Builder builder = builder()
+				.useNoPrealloc(!wiredTiger)
+				.useSmallFiles(!wiredTiger)
+				.useNoJournal(true)
+				.syncDelay(0)
+				.useDefaultSyncDelay(false)
+				.ttlMonitorEnabled(false)
+				.diagnosticDataCollectionEnabled(!version.enabled(Feature.DIAGNOSTIC_DATA_COLLECTION));
+		if (wiredTiger) {
+			builder.wiredTigerCacheSizeGB(version.enabled(Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE) ? 0.25 : 1.0);
+		}
+		return builder.build();
+	}
+
 	static ImmutableMongoCmdOptions.Builder builder() {
 		return ImmutableMongoCmdOptions.builder();
 	}
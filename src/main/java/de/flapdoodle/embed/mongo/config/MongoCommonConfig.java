@@ -44,6 +44,15 @@ public interface MongoCommonConfig extends ExecutableProcessConfig {
 		return MongoCmdOptions.defaults();
 	}
 
+	/**
+	 * additional check racing the log watcher while waiting for the process to
+	 * be ready
+	 */
+	@Default
+	default ReadinessProbe readinessProbe() {
+		return ReadinessProbes.none();
+	}
+
 	@Default
 	default String password() {
 		return "";
@@ -62,6 +62,12 @@ public interface MongodConfig extends MongoCommonConfig {
 	default String pidFile() {
 		return "mongod.pid";
 	}
+
+	@Default
+	@Override
+	default ReadinessProbe readinessProbe() {
+		return ReadinessProbes.isMaster();
+	}
 	
 	@Override
 	@Default
@@ -46,6 +46,12 @@ public interface MongosConfig extends MongoCommonConfig {
 		return "mongos.pid";
 	}
 
+	@Default
+	@Override
+	default ReadinessProbe readinessProbe() {
+		return ReadinessProbes.isMaster();
+	}
+
 	@Default
 	@Override
 	default SupportConfig supportConfig() {
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+/**
+ * A RAM backed location (like /dev/shm or a tmpfs mount) for temporary db
+ * dirs. Each instance needs budgetInBytes of free space there, if there is not
+ * enough left the db dir is created on disk as usual.
+ */
+public class RamDisk {
+
+	public static final String SHM = "/dev/shm";
+	public static final long DEFAULT_BUDGET_IN_BYTES = 256L * 1024 * 1024;
+
+	private final String location;
+	private final long budgetInBytes;
+
+	public RamDisk() {
+		this(SHM, DEFAULT_BUDGET_IN_BYTES);
+	}
+
+	public RamDisk(long budgetInBytes) {
+		this(SHM, budgetInBytes);
+	}
+
+	public RamDisk(String location, long budgetInBytes) {
+		if (location == null || location.isEmpty()) {
+			throw new IllegalArgumentException("location is not set");
+		}
+		if (budgetInBytes <= 0) {
+			throw new IllegalArgumentException("budget must be positive: " + budgetInBytes);
+		}
+		this.location = location;
+		this.budgetInBytes = budgetInBytes;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public long getBudgetInBytes() {
+		return budgetInBytes;
+	}
+
+	public static RamDisk defaults() {
+		return new RamDisk();
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import java.net.InetAddress;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Actively checks if a started server accepts commands. The check races the
+ * log watcher, startup is done as soon as one of them confirms it.
+ */
+@FunctionalInterface
+public interface ReadinessProbe {
+
+	/**
+	 * @param cancelled
+	 *            becomes true if the log watcher came first, the probe should
+	 *            give up then
+	 * @return true if the server accepts commands, false if the probe gave up
+	 */
+	boolean awaitReady(InetAddress host, int port, long timeoutInMillis, BooleanSupplier cancelled)
+			throws InterruptedException;
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import de.flapdoodle.embed.mongo.runtime.WireProtocol;
+
+public class ReadinessProbes {
+
+	private static final ReadinessProbe NONE = (host, port, timeoutInMillis, cancelled) -> false;
+	private static final ReadinessProbe IS_MASTER = new IsMasterProbe(10, 500);
+
+	private ReadinessProbes() {
+		// no instance
+	}
+
+	/**
+	 * rely on the log watcher only
+	 */
+	public static ReadinessProbe none() {
+		return NONE;
+	}
+
+	/**
+	 * connects and sends isMaster (the legacy name of hello, known to every
+	 * server version) until it is answered with ok, backing off from 10ms up
+	 * to 500ms between attempts
+	 */
+	public static ReadinessProbe isMaster() {
+		return IS_MASTER;
+	}
+
+	public static ReadinessProbe isMaster(long initialBackoffInMillis, long maxBackoffInMillis) {
+		return new IsMasterProbe(initialBackoffInMillis, maxBackoffInMillis);
+	}
+
+	private static final class IsMasterProbe implements ReadinessProbe {
+
+		private static final int MAX_ATTEMPT_TIMEOUT_IN_MILLIS = 1000;
+
+		private final long initialBackoffInMillis;
+		private final long maxBackoffInMillis;
+
+		IsMasterProbe(long initialBackoffInMillis, long maxBackoffInMillis) {
+			if (initialBackoffInMillis < 1 || maxBackoffInMillis < initialBackoffInMillis) {
+				throw new IllegalArgumentException("invalid backoff: " + initialBackoffInMillis + " .. " + maxBackoffInMillis);
+			}
+			this.initialBackoffInMillis = initialBackoffInMillis;
+			this.maxBackoffInMillis = maxBackoffInMillis;
+		}
+
+		@Override
+		public boolean awaitReady(InetAddress host, int port, long timeoutInMillis, BooleanSupplier cancelled)
+				throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+			long backoff = initialBackoffInMillis;
+			while (!cancelled.getAsBoolean()) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					return false;
+				}
+				try {
+					int attemptTimeout = (int) Math.min(remaining, MAX_ATTEMPT_TIMEOUT_IN_MILLIS);
+					if (WireProtocol.isOk(WireProtocol.runCommand(host, port, "admin",
+							Collections.singletonMap("isMaster", 1), attemptTimeout))) {
+						return true;
+					}
+				} catch (IOException iox) {
+					// not listening yet
+				}
+				Thread.sleep(Math.min(backoff, Math.max(1, remaining)));
+				backoff = Math.min(backoff * 2, maxBackoffInMillis);
+			}
+			return false;
+		}
+	}
+}
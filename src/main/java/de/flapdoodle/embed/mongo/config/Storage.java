@@ -25,15 +25,24 @@ public class Storage {
 	private final int oplogSize;
 	private final String replSetName;
 	private final String databaseDir;
+	private final RamDisk ramDisk;
 
 	public Storage() {
 		this(null, null, 0);
 	}
 
 	public Storage(String databaseDir, String replSetName, int oplogSize) {
+		this(databaseDir, replSetName, oplogSize, null);
+	}
+
+	/**
+	 * @param ramDisk used for the temporary db dir if databaseDir is not set
+	 */
+	public Storage(String databaseDir, String replSetName, int oplogSize, RamDisk ramDisk) {
 		this.databaseDir = databaseDir;
 		this.replSetName = replSetName;
 		this.oplogSize = oplogSize;
+		this.ramDisk = ramDisk;
 	}
 
 	public int getOplogSize() {
@@ -47,4 +56,8 @@ public class Storage {
 	public String getDatabaseDir() {
 		return databaseDir;
 	}
+
+	public RamDisk getRamDisk() {
+		return ramDisk;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.flapdoodle.embed.mongo.StartupTimings;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.store.Downloader;
+
+/**
+ * Records the {@link StartupTimings.Phase#DOWNLOAD} phase of the executable
+ * currently prepared.
+ */
+public class TimedDownloader implements Downloader {
+
+	private final Downloader delegate;
+
+	public TimedDownloader(Downloader delegate) {
+		this.delegate = delegate;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public String getDownloadUrl(DownloadConfig runtime, Distribution distribution) {
+		return delegate.getDownloadUrl(runtime, distribution);
+	}
+
+	@Override
+	public File download(DownloadConfig runtime, Distribution distribution) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return delegate.download(runtime, distribution);
+		} finally {
+			StartupTimings.record(StartupTimings.Phase.DOWNLOAD, start, System.nanoTime());
+		}
+	}
+}
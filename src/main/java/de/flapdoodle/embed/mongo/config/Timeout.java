@@ -23,16 +23,30 @@ package de.flapdoodle.embed.mongo.config;
 public class Timeout {
 
 	private final long startupTimeout;
+	private final long stopTimeout;
 
 	public Timeout() {
 		this(20000);
 	}
 
 	public Timeout(long startupTimeout) {
+		this(startupTimeout, 10000);
+	}
+
+	/**
+	 * @param stopTimeout time to wait for the process to exit, shared by all
+	 *                    escalation steps
+	 */
+	public Timeout(long startupTimeout, long stopTimeout) {
 		this.startupTimeout = startupTimeout;
+		this.stopTimeout = stopTimeout;
 	}
 
 	public long getStartupTimeout() {
 		return startupTimeout;
 	}
+
+	public long getStopTimeout() {
+		return stopTimeout;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config.processlistener;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.DbDirArchive;
+
+/**
+ * Packs the db dir into one compressed archive after the process stopped,
+ * to be restored with {@link RestoreDbFilesFromArchiveBeforeProcessStart}.
+ */
+public class ArchiveDbFilesFromDirBeforeProcessStop implements IMongoProcessListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveDbFilesFromDirBeforeProcessStop.class);
+
+	private final File archive;
+	private final DbDirArchive.Codec codec;
+	private final int threads;
+	private volatile DbDirArchive.Report lastReport;
+
+	public ArchiveDbFilesFromDirBeforeProcessStop(final File archive) {
+		this(archive, DbDirArchive.Codec.GZIP, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads more than one compresses blocks in parallel
+	 */
+	public ArchiveDbFilesFromDirBeforeProcessStop(final File archive, final DbDirArchive.Codec codec, final int threads) {
+		this.archive = archive;
+		this.codec = codec;
+		this.threads = threads;
+	}
+
+	@Override
+	public void onBeforeProcessStart(final File dbDir, final boolean dbDirIsTemp) {
+	}
+
+	@Override
+	public void onAfterProcessStop(final File dbDir, final boolean dbDirIsTemp) {
+		try {
+			DbDirArchive.Report report = DbDirArchive.pack(dbDir.toPath(), archive.toPath(), codec, threads);
+			lastReport = report;
+			LOGGER.info("archived {} into {}: {}", dbDir, archive, report);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return report of the last archive written, null if none was written yet
+	 */
+	public DbDirArchive.Report getLastReport() {
+		return lastReport;
+	}
+}
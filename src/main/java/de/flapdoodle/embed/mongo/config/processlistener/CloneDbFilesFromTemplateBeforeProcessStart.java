@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config.processlistener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.DbDirCloner;
+
+/**
+ * Fills the db dir with a clone of a {@link DbDirTemplate} instead of copying
+ * it byte by byte, see {@link DbDirCloner} for the strategies used.
+ */
+public class CloneDbFilesFromTemplateBeforeProcessStart implements IMongoProcessListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CloneDbFilesFromTemplateBeforeProcessStart.class);
+
+	private final DbDirTemplate template;
+	private volatile DbDirCloner.Report lastReport;
+
+	public CloneDbFilesFromTemplateBeforeProcessStart(final DbDirTemplate template) {
+		this.template = template;
+	}
+
+	@Override
+	public void onBeforeProcessStart(final File dbDir, final boolean dbDirIsTemp) {
+		try {
+			DbDirCloner.Report report = DbDirCloner.cloneDirectory(template.getDirectory().toPath(), dbDir.toPath(),
+					template.getImmutableFiles());
+			lastReport = report;
+			LOGGER.info("cloned template {} into {}: {}, saved {}ms", template.getDirectory(), dbDir, report,
+					TimeUnit.NANOSECONDS.toMillis(template.timeSavedNanos(report)));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void onAfterProcessStop(final File dbDir, final boolean dbDirIsTemp) {
+	}
+
+	/**
+	 * @return report of the last clone, null if nothing was cloned yet
+	 */
+	public DbDirCloner.Report getLastReport() {
+		return lastReport;
+	}
+
+	/**
+	 * @return time saved by the last clone compared to a plain copy, see {@link DbDirTemplate#timeSavedNanos}
+	 */
+	public long getLastTimeSavedNanos() {
+		DbDirCloner.Report report = lastReport;
+		return report != null ? template.timeSavedNanos(report) : 0;
+	}
+}
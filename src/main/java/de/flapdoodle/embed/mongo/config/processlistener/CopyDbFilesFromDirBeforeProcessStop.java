@@ -23,10 +23,15 @@ package de.flapdoodle.embed.mongo.config.processlistener;
 import java.io.File;
 import java.io.IOException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.flapdoodle.embed.mongo.util.FileUtils;
 
 public class CopyDbFilesFromDirBeforeProcessStop implements IMongoProcessListener {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(CopyDbFilesFromDirBeforeProcessStop.class);
+
 	private final File _destination;
 
 	public CopyDbFilesFromDirBeforeProcessStop(final File destination) {
@@ -40,7 +45,8 @@ public class CopyDbFilesFromDirBeforeProcessStop implements IMongoProcessListene
 	@Override
 	public void onAfterProcessStop(final File dbDir, final boolean dbDirIsTemp) {
 		try {
-			FileUtils.copyDirectory(dbDir.toPath(), _destination.toPath());
+			FileUtils.CopyReport report = FileUtils.copyDirectoryInParallel(dbDir.toPath(), _destination.toPath());
+			LOGGER.info("copied {}: {}", dbDir, report);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
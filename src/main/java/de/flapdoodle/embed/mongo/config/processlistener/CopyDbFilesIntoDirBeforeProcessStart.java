@@ -23,11 +23,16 @@ package de.flapdoodle.embed.mongo.config.processlistener;
 import java.io.File;
 import java.io.IOException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.flapdoodle.embed.mongo.util.FileUtils;
 
 
 public class CopyDbFilesIntoDirBeforeProcessStart implements IMongoProcessListener {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(CopyDbFilesIntoDirBeforeProcessStart.class);
+
 	private final File _source;
 	
 	public CopyDbFilesIntoDirBeforeProcessStart(final File source) {
@@ -37,7 +42,8 @@ public class CopyDbFilesIntoDirBeforeProcessStart implements IMongoProcessListen
 	@Override
 	public void onBeforeProcessStart(final File dbDir, final boolean dbDirIsTemp) {
 		try {
-			FileUtils.copyDirectory(_source.toPath(), dbDir.toPath());
+			FileUtils.CopyReport report = FileUtils.copyDirectoryInParallel(_source.toPath(), dbDir.toPath());
+			LOGGER.info("copied {}: {}", _source, report);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
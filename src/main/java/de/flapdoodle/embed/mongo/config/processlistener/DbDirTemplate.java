@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config.processlistener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import de.flapdoodle.embed.mongo.util.DbDirCloner;
+import de.flapdoodle.embed.mongo.util.FileUtils;
+import de.flapdoodle.embed.process.io.directories.PropertyOrPlatformTempDir;
+import de.flapdoodle.embed.process.io.file.Files;
+
+/**
+ * A seeded database directory used as template for
+ * {@link CloneDbFilesFromTemplateBeforeProcessStart}.
+ *
+ * Creating a template copies it once with a plain byte copy, the time it takes
+ * is used as baseline to report how much time each reflink clone saved.
+ */
+public final class DbDirTemplate {
+
+	private final File directory;
+	private final Predicate<Path> immutableFiles;
+	private final long plainCopyNanos;
+
+	private DbDirTemplate(File directory, Predicate<Path> immutableFiles, long plainCopyNanos) {
+		this.directory = directory;
+		this.immutableFiles = immutableFiles;
+		this.plainCopyNanos = plainCopyNanos;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public Predicate<Path> getImmutableFiles() {
+		return immutableFiles;
+	}
+
+	public long getPlainCopyNanos() {
+		return plainCopyNanos;
+	}
+
+	/**
+	 * @return time saved by a reflink clone, 0 for the other strategies: they copy
+	 * (almost) every byte like the baseline, so the difference would be noise
+	 */
+	public long timeSavedNanos(DbDirCloner.Report report) {
+		if (report.getStrategy() != DbDirCloner.Strategy.REFLINK) {
+			return 0;
+		}
+		return plainCopyNanos - report.getElapsedNanos();
+	}
+
+	/**
+	 * the directory must contain the files of a cleanly stopped mongod
+	 */
+	public static DbDirTemplate of(File directory) throws IOException {
+		return of(directory, DbDirCloner.IMMUTABLE_WIRED_TIGER_FILES);
+	}
+
+	public static DbDirTemplate of(File directory, Predicate<Path> immutableFiles) throws IOException {
+		Objects.requireNonNull(directory);
+		Objects.requireNonNull(immutableFiles);
+		if (!directory.isDirectory()) {
+			throw new IllegalArgumentException("Template must be a directory: " + directory);
+		}
+		return new DbDirTemplate(directory, immutableFiles, measurePlainCopy(directory));
+	}
+
+	private static long measurePlainCopy(File directory) throws IOException {
+		File baseline = Files.createTempDir(PropertyOrPlatformTempDir.defaultInstance(), "embedmongo-template");
+		try {
+			long start = System.nanoTime();
+			FileUtils.copyDirectory(directory.toPath(), baseline.toPath());
+			return System.nanoTime() - start;
+		} finally {
+			Files.forceDelete(baseline);
+		}
+	}
+}
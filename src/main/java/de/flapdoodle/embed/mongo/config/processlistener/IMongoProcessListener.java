@@ -22,6 +22,8 @@ package de.flapdoodle.embed.mongo.config.processlistener;
 
 import java.io.File;
 
+import de.flapdoodle.embed.mongo.StartupTimings;
+
 
 public interface IMongoProcessListener {
 
@@ -29,6 +31,12 @@ public interface IMongoProcessListener {
 
 	void onAfterProcessStop(File dbDir, boolean dbDirIsTemp);
 
+	/**
+	 * called when the process is ready
+	 */
+	default void onAfterProcessStart(StartupTimings timings) {
+	}
+
 	default IMongoProcessListener andThen(IMongoProcessListener second) {
 		return new JoinedProcessListener(this,second);
 	}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config.processlistener;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.IncrementalSnapshot;
+
+/**
+ * Like {@link CopyDbFilesFromDirBeforeProcessStop}, but only the files which
+ * changed since the last snapshot into the same destination are copied, see
+ * {@link IncrementalSnapshot}.
+ */
+public class IncrementalCopyDbFilesFromDirBeforeProcessStop implements IMongoProcessListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalCopyDbFilesFromDirBeforeProcessStop.class);
+
+	private final File destination;
+	private final boolean hashContents;
+	private volatile IncrementalSnapshot.Report lastReport;
+
+	public IncrementalCopyDbFilesFromDirBeforeProcessStop(final File destination) {
+		this(destination, false);
+	}
+
+	/**
+	 * @param hashContents compare the content too, not only size and modification time
+	 */
+	public IncrementalCopyDbFilesFromDirBeforeProcessStop(final File destination, final boolean hashContents) {
+		this.destination = destination;
+		this.hashContents = hashContents;
+	}
+
+	@Override
+	public void onBeforeProcessStart(final File dbDir, final boolean dbDirIsTemp) {
+	}
+
+	@Override
+	public void onAfterProcessStop(final File dbDir, final boolean dbDirIsTemp) {
+		try {
+			IncrementalSnapshot.Report report = IncrementalSnapshot.snapshot(dbDir.toPath(), destination.toPath(), hashContents);
+			lastReport = report;
+			LOGGER.info("snapshot of {} into {}: {}", dbDir, destination, report);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return report of the last snapshot, null if none was taken yet
+	 */
+	public IncrementalSnapshot.Report getLastReport() {
+		return lastReport;
+	}
+}
@@ -22,6 +22,8 @@ package de.flapdoodle.embed.mongo.config.processlistener;
 
 import java.io.File;
 
+import de.flapdoodle.embed.mongo.StartupTimings;
+
 public class JoinedProcessListener implements IMongoProcessListener {
 
 	private final IMongoProcessListener first;
@@ -44,4 +46,10 @@ public class JoinedProcessListener implements IMongoProcessListener {
 		second.onAfterProcessStop(dbDir, dbDirIsTemp);
 	}
 
+	@Override
+	public void onAfterProcessStart(StartupTimings timings) {
+		first.onAfterProcessStart(timings);
+		second.onAfterProcessStart(timings);
+	}
+
 }
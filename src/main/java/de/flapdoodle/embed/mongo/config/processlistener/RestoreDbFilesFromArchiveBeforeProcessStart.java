@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config.processlistener;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.DbDirArchive;
+
+/**
+ * Unpacks an archive written by {@link ArchiveDbFilesFromDirBeforeProcessStop}
+ * into the db dir before the process starts.
+ */
+public class RestoreDbFilesFromArchiveBeforeProcessStart implements IMongoProcessListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RestoreDbFilesFromArchiveBeforeProcessStart.class);
+
+	private final File archive;
+	private volatile DbDirArchive.Report lastReport;
+
+	public RestoreDbFilesFromArchiveBeforeProcessStart(final File archive) {
+		this.archive = archive;
+	}
+
+	@Override
+	public void onBeforeProcessStart(final File dbDir, final boolean dbDirIsTemp) {
+		try {
+			DbDirArchive.Report report = DbDirArchive.unpack(archive.toPath(), dbDir.toPath());
+			lastReport = report;
+			LOGGER.info("restored {} into {}: {}", archive, dbDir, report);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void onAfterProcessStop(final File dbDir, final boolean dbDirIsTemp) {
+	}
+
+	/**
+	 * @return report of the last restore, null if nothing was restored yet
+	 */
+	public DbDirArchive.Report getLastReport() {
+		return lastReport;
+	}
+}
@@ -35,7 +35,16 @@ public enum Feature {
 	ONLY_WITH_SSL,
 	ONLY_WINDOWS_2008_SERVER,
 	NO_SOLARIS_SUPPORT,
-	NO_BIND_IP_TO_LOCALHOST;
+	NO_BIND_IP_TO_LOCALHOST,
+
+	WIRED_TIGER_DEFAULT /* default storage engine since 3.2 */,
+	DIAGNOSTIC_DATA_COLLECTION /* ftdc, since 3.2 */,
+	FRACTIONAL_WIRED_TIGER_CACHE_SIZE /* --wiredTigerCacheSizeGB accepts 0.25 and up since 3.4 */,
+	JOURNAL_REQUIRED_FOR_REPLICA_SET /* replica set members refuse --nojournal since 4.0 */,
+	NO_MMAPV1_ARGS /* --smallfiles and --noprealloc are gone with mmapv1 in 4.2 */,
+	OP_MSG /* wire protocol message for commands since 3.6 */,
+	JSON_LOG /* structured log output since 4.4 */,
+	FSYNC_UNLOCK /* fsyncUnlock command since 3.2 */;
 
 
 	public static EnumSet<Feature> asSet(Feature... features) {
@@ -180,48 +180,48 @@ public enum Version implements IFeatureAwareVersion {
   @Deprecated
   V3_1_6("3.1.6",Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
   @Deprecated
-  V3_2_0("3.2.0", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
+  V3_2_0("3.2.0", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FSYNC_UNLOCK),
 
   /**
    * Latest 3.2 series development release
    */
   @Deprecated
-  V3_2_1_RC3("3.2.1-rc3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
+  V3_2_1_RC3("3.2.1-rc3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FSYNC_UNLOCK),
 
   /**
    * Latest 3.2 series production release
    */
   @Deprecated
-  V3_2_1("3.2.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
-  V3_2_20("3.2.20", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
+  V3_2_1("3.2.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FSYNC_UNLOCK),
+  V3_2_20("3.2.20", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FSYNC_UNLOCK),
 
   /**
    * Latest 3 series production release
    */
   @Deprecated
-  V3_3_1("3.3.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE),
+  V3_3_1("3.3.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FSYNC_UNLOCK),
   @Deprecated
-  V3_4_3("3.4.3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE),
+  V3_4_3("3.4.3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.FSYNC_UNLOCK),
   /**
    * last version with solaris support
    */
-  V3_4_5("3.4.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE),
-  V3_4_15("3.4.15", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_SOLARIS_SUPPORT),
-  V3_5_5("3.5.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE),
+  V3_4_5("3.4.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.FSYNC_UNLOCK),
+  V3_4_15("3.4.15", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_SOLARIS_SUPPORT, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.FSYNC_UNLOCK),
+  V3_5_5("3.5.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.FSYNC_UNLOCK),
   @Deprecated
-  V3_6_0("3.6.0", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V3_6_0("3.6.0", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
   @Deprecated
-  V3_6_2("3.6.2", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V3_6_2("3.6.2", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
   @Deprecated
-  V3_6_3("3.6.3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V3_6_3("3.6.3", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
 
-  V3_6_5("3.6.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V3_6_5("3.6.5", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
   @Deprecated
-  V4_0_2("4.0.2", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
-  V4_0_12("4.0.12", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V4_0_2("4.0.2", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.JOURNAL_REQUIRED_FOR_REPLICA_SET, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
+  V4_0_12("4.0.12", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.JOURNAL_REQUIRED_FOR_REPLICA_SET, Feature.OP_MSG, Feature.FSYNC_UNLOCK),
   
-  V4_4_1("4.4.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
-  LATEST_NIGHTLY("latest", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST),
+  V4_4_1("4.4.1", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.JOURNAL_REQUIRED_FOR_REPLICA_SET, Feature.NO_MMAPV1_ARGS, Feature.OP_MSG, Feature.JSON_LOG, Feature.FSYNC_UNLOCK),
+  LATEST_NIGHTLY("latest", Feature.SYNC_DELAY, Feature.STORAGE_ENGINE, Feature.ONLY_64BIT, Feature.NO_CHUNKSIZE_ARG, Feature.MONGOS_CONFIGDB_SET_STYLE, Feature.NO_HTTP_INTERFACE_ARG, Feature.ONLY_WITH_SSL, Feature.ONLY_WINDOWS_2008_SERVER, Feature.NO_SOLARIS_SUPPORT, Feature.NO_BIND_IP_TO_LOCALHOST, Feature.WIRED_TIGER_DEFAULT, Feature.DIAGNOSTIC_DATA_COLLECTION, Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE, Feature.JOURNAL_REQUIRED_FOR_REPLICA_SET, Feature.NO_MMAPV1_ARGS, Feature.OP_MSG, Feature.JSON_LOG, Feature.FSYNC_UNLOCK),
 
 
   ;
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough BSON to send admin commands and read their replies without
+ * depending on the (optional) mongo java driver.
+ */
+final class Bson {
+
+	private static final byte DOUBLE = 0x01;
+	private static final byte STRING = 0x02;
+	private static final byte DOCUMENT = 0x03;
+	private static final byte ARRAY = 0x04;
+	private static final byte BINARY = 0x05;
+	private static final byte OBJECT_ID = 0x07;
+	private static final byte BOOLEAN = 0x08;
+	private static final byte DATE = 0x09;
+	private static final byte NULL = 0x0A;
+	private static final byte INT32 = 0x10;
+	private static final byte TIMESTAMP = 0x11;
+	private static final byte INT64 = 0x12;
+	private static final byte DECIMAL128 = 0x13;
+
+	private Bson() {
+		// no instance
+	}
+
+	static byte[] encode(Map<String, ?> document) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeDocument(out, document);
+		return out.toByteArray();
+	}
+
+	static Map<String, Object> decode(ByteBuffer buffer) throws IOException {
+		ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		int length = in.getInt();
+		if (length < 5 || length > in.capacity()) {
+			throw new IOException("invalid document length: " + length);
+		}
+		in.limit(length);
+		Map<String, Object> document = readDocument(in);
+		buffer.position(buffer.position() + length);
+		return document;
+	}
+
+	private static void writeDocument(ByteArrayOutputStream out, Map<String, ?> document) {
+		ByteArrayOutputStream elements = new ByteArrayOutputStream();
+		for (Map.Entry<String, ?> entry : document.entrySet()) {
+			writeElement(elements, entry.getKey(), entry.getValue());
+		}
+		writeInt(out, elements.size() + 5);
+		out.write(elements.toByteArray(), 0, elements.size());
+		out.write(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeElement(ByteArrayOutputStream out, String name, Object value) {
+		if (value == null) {
+			out.write(NULL);
+			writeCString(out, name);
+		} else if (value instanceof Double || value instanceof Float) {
+			out.write(DOUBLE);
+			writeCString(out, name);
+			writeLong(out, Double.doubleToRawLongBits(((Number) value).doubleValue()));
+		} else if (value instanceof String) {
+			out.write(STRING);
+			writeCString(out, name);
+			byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+			writeInt(out, bytes.length + 1);
+			out.write(bytes, 0, bytes.length);
+			out.write(0);
+		} else if (value instanceof Map) {
+			out.write(DOCUMENT);
+			writeCString(out, name);
+			writeDocument(out, (Map<String, ?>) value);
+		} else if (value instanceof List) {
+			out.write(ARRAY);
+			writeCString(out, name);
+			Map<String, Object> asDocument = new LinkedHashMap<>();
+			List<?> list = (List<?>) value;
+			for (int i = 0; i < list.size(); i++) {
+				asDocument.put(String.valueOf(i), list.get(i));
+			}
+			writeDocument(out, asDocument);
+		} else if (value instanceof Boolean) {
+			out.write(BOOLEAN);
+			writeCString(out, name);
+			out.write((Boolean) value ? 1 : 0);
+		} else if (value instanceof Integer) {
+			out.write(INT32);
+			writeCString(out, name);
+			writeInt(out, (Integer) value);
+		} else if (value instanceof Long) {
+			out.write(INT64);
+			writeCString(out, name);
+			writeLong(out, (Long) value);
+		} else {
+			throw new IllegalArgumentException("unsupported type for " + name + ": " + value.getClass());
+		}
+	}
+
+	private static Map<String, Object> readDocument(ByteBuffer in) throws IOException {
+		Map<String, Object> document = new LinkedHashMap<>();
+		while (true) {
+			byte type = in.get();
+			if (type == 0) {
+				return document;
+			}
+			String name = readCString(in);
+			document.put(name, readValue(in, type, name));
+		}
+	}
+
+	private static Object readValue(ByteBuffer in, byte type, String name) throws IOException {
+		switch (type) {
+			case DOUBLE:
+				return in.getDouble();
+			case STRING:
+				int length = in.getInt();
+				byte[] bytes = new byte[length - 1];
+				in.get(bytes);
+				in.get();
+				return new String(bytes, StandardCharsets.UTF_8);
+			case DOCUMENT:
+				in.getInt();
+				return readDocument(in);
+			case ARRAY:
+				in.getInt();
+				return new ArrayList<>(readDocument(in).values());
+			case BINARY:
+				byte[] data = new byte[in.getInt()];
+				in.get();
+				in.get(data);
+				return data;
+			case OBJECT_ID:
+				byte[] id = new byte[12];
+				in.get(id);
+				return id;
+			case BOOLEAN:
+				return in.get() != 0;
+			case DATE:
+			case TIMESTAMP:
+			case INT64:
+				return in.getLong();
+			case NULL:
+				return null;
+			case INT32:
+				return in.getInt();
+			case DECIMAL128:
+				byte[] decimal = new byte[16];
+				in.get(decimal);
+				return decimal;
+			default:
+				throw new IOException("unsupported bson type " + type + " for " + name);
+		}
+	}
+
+	private static String readCString(ByteBuffer in) {
+		int start = in.position();
+		while (in.get() != 0) {
+			// find terminator
+		}
+		byte[] bytes = new byte[in.position() - start - 1];
+		in.position(start);
+		in.get(bytes);
+		in.get();
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeCString(ByteArrayOutputStream out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.write(bytes, 0, bytes.length);
+		out.write(0);
+	}
+
+	static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+
+	private static void writeLong(ByteArrayOutputStream out, long value) {
+		writeInt(out, (int) value);
+		writeInt(out, (int) (value >>> 32));
+	}
+}
@@ -28,11 +28,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -66,12 +68,35 @@ public class Mongod extends AbstractMongo {
  			0x00, 0x10, 0x73, 0x68, 0x75, 0x74, 0x64, 0x6F, 0x77, 0x6E, 0x00, 0x01, 0x00, 0x00, 0x00, 0x08, 0x66, 0x6F, 
  			0x72, 0x63, 0x65, 0x00, 0x01, 0x10, 0x74, 0x69, 0x6D, 0x65, 0x6F, 0x75, 0x74, 0x53, 0x65, 0x63, 0x73, 0x00, 
                         0x00, 0x00, 0x00, 0x00, 0x00, 0x05, 0x00, 0x00, 0x00, 0x00 };
+	private static final Map<String, Object> SHUTDOWN = shutdownCommand();
+	// plain log before 4.4, json log since
+	private static final Pattern PROCESS_ID = Pattern.compile(
+			"MongoDB starting : pid=([1234567890]+) port|\"msg\":\"MongoDB starting\",\"attr\":\\{\"pid\":([1234567890]+)",
+			Pattern.MULTILINE);
 	private static final int SOCKET_TIMEOUT = 2000;
 	private static final int CONNECT_TIMEOUT = 2000;
 	private static final int BYTE_BUFFER_LENGTH = 512;
 	private static final int WAITING_TIME_SHUTDOWN_IN_MS = 100;
 
 	public static boolean sendShutdown(InetAddress hostname, int port) {
+		try {
+			return sendShutdown(hostname, port, false);
+		} finally {
+			try {
+				Thread.sleep(WAITING_TIME_SHUTDOWN_IN_MS);
+			} catch (InterruptedException ix) {
+				LOGGER.warn("sendShutdown closing {}:{}", hostname, port, ix);
+			}
+		}
+	}
+
+	/**
+	 * Sends a shutdown command and returns as soon as mongod closed the
+	 * connection, without waiting for the process to exit.
+	 *
+	 * @param opMsg send the command as OP_MSG (mongodb 3.6+) instead of OP_QUERY
+	 */
+	public static boolean sendShutdown(InetAddress hostname, int port, boolean opMsg) {
 		if (!hostname.isLoopbackAddress()) {
 			LOGGER.warn("---------------------------------------\n"
 					+ "Your localhost ({}) is not a loopback adress\n"
@@ -82,15 +107,22 @@ public class Mongod extends AbstractMongo {
 
 		boolean tryToReadErrorResponse = false;
 
-		final Socket s = new Socket();
-		try {
+		try (Socket s = WireProtocol.connect(hostname, port, CONNECT_TIMEOUT)) {
 			s.setSoTimeout(SOCKET_TIMEOUT);
-			s.connect(new InetSocketAddress(hostname, port), CONNECT_TIMEOUT);
-			OutputStream outputStream = s.getOutputStream();
-			outputStream.write(SHUTDOWN_COMMAND);
-			outputStream.flush();
+			if (opMsg) {
+				WireProtocol.sendCommand(s, "admin", SHUTDOWN, true);
+			} else {
+				OutputStream outputStream = s.getOutputStream();
+				outputStream.write(SHUTDOWN_COMMAND);
+				outputStream.flush();
+			}
 
 			tryToReadErrorResponse = true;
+			if (opMsg) {
+				// mongod closes the connection while shutting down, any reply is an error
+				LOGGER.error("Got some response, should be an error message: {}", WireProtocol.receiveReply(s, true));
+				return false;
+			}
 			InputStream inputStream = s.getInputStream();
 			if (inputStream.read(new byte[BYTE_BUFFER_LENGTH]) != -1) {
 				LOGGER.error("Got some response, should be an error message");
@@ -102,22 +134,14 @@ public class Mongod extends AbstractMongo {
 				return true;
 			}
 			LOGGER.warn("sendShutdown {}:{}", hostname, port, iox);
-		} finally {
-			try {
-				s.close();
-				Thread.sleep(WAITING_TIME_SHUTDOWN_IN_MS);
-			} catch (InterruptedException | IOException ix) {
-				LOGGER.warn("sendShutdown closing {}:{}", hostname, port, ix);
-			}
 		}
 		return false;
 	}
 
 	public static int getMongodProcessId(String output, int defaultValue) {
-		Pattern pattern = Pattern.compile("MongoDB starting : pid=([1234567890]+) port", Pattern.MULTILINE);
-		Matcher matcher = pattern.matcher(output);
+		Matcher matcher = PROCESS_ID.matcher(output);
 		if (matcher.find()) {
-			String value = matcher.group(1);
+			String value = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
 			return Integer.parseInt(value);
 		}
 		return defaultValue;
@@ -147,13 +171,15 @@ public class Mongod extends AbstractMongo {
 		} else {
 			ret.add("--noauth");
 		}
-		if (config.cmdOptions().useNoPrealloc()) {
-			ret.add("--noprealloc");
-		}
-		if (config.cmdOptions().useSmallFiles()) {
-			ret.add("--smallfiles");
+		if (!config.version().enabled(Feature.NO_MMAPV1_ARGS)) {
+			if (config.cmdOptions().useNoPrealloc()) {
+				ret.add("--noprealloc");
+			}
+			if (config.cmdOptions().useSmallFiles()) {
+				ret.add("--smallfiles");
+			}
 		}
-		if (config.cmdOptions().useNoJournal() && !config.isConfigServer()) {
+		if (config.cmdOptions().useNoJournal() && !config.isConfigServer() && !journalRequired(config)) {
 			ret.add("--nojournal");
 		}
 		if (config.cmdOptions().master()) {
@@ -170,6 +196,16 @@ public class Mongod extends AbstractMongo {
 		if (config.cmdOptions().isVerbose()) {
 			ret.add("-v");
 		}
+		applyWiredTigerCacheSize(config, ret);
+		if (!config.cmdOptions().diagnosticDataCollectionEnabled()
+				&& config.version().enabled(Feature.DIAGNOSTIC_DATA_COLLECTION)) {
+			ret.add("--setParameter");
+			ret.add("diagnosticDataCollectionEnabled=false");
+		}
+		if (!config.cmdOptions().ttlMonitorEnabled()) {
+			ret.add("--setParameter");
+			ret.add("ttlMonitorEnabled=false");
+		}
 
 		applyDefaultOptions(config, ret);
 		applyNet(config, ret);
@@ -200,6 +236,36 @@ public class Mongod extends AbstractMongo {
 		return ret;
 	}
 
+	private static Map<String, Object> shutdownCommand() {
+		Map<String, Object> command = new LinkedHashMap<>();
+		command.put("shutdown", 1);
+		command.put("force", true);
+		command.put("timeoutSecs", 5);
+		return Collections.unmodifiableMap(command);
+	}
+
+	private static boolean journalRequired(MongodConfig config) {
+		return config.replication().getReplSetName() != null
+				&& config.version().enabled(Feature.JOURNAL_REQUIRED_FOR_REPLICA_SET);
+	}
+
+	private static void applyWiredTigerCacheSize(MongodConfig config, List<String> ret) {
+		if (!config.cmdOptions().wiredTigerCacheSizeGB().isPresent()) {
+			return;
+		}
+		String storageEngine = config.cmdOptions().storageEngine()
+				.orElse(config.version().enabled(Feature.WIRED_TIGER_DEFAULT) ? "wiredTiger" : "mmapv1");
+		if (!"wiredTiger".equals(storageEngine)) {
+			return;
+		}
+		double cacheSize = config.cmdOptions().wiredTigerCacheSizeGB().get();
+		if (!config.version().enabled(Feature.FRACTIONAL_WIRED_TIGER_CACHE_SIZE)) {
+			ret.add("--wiredTigerCacheSizeGB=" + Math.max(1, (long) Math.ceil(cacheSize)));
+		} else {
+			ret.add("--wiredTigerCacheSizeGB=" + Math.max(0.25, cacheSize));
+		}
+	}
+
 	private static void applySyncDelay(List<String> ret, MongoCmdOptions cmdOptions) {
 		int syncDelay = cmdOptions.syncDelay();
 		if (!cmdOptions.useDefaultSyncDelay()) {
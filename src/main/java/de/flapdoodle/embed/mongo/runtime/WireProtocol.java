@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends single commands to a mongod/mongos over a plain socket.
+ */
+public final class WireProtocol {
+
+	private static final int OP_REPLY = 1;
+	private static final int OP_QUERY = 2004;
+	private static final int OP_MSG = 2013;
+	private static final int MAX_MESSAGE_SIZE = 48 * 1000 * 1000;
+
+	private static final AtomicInteger REQUEST_ID = new AtomicInteger();
+
+	private WireProtocol() {
+		// no instance
+	}
+
+	/**
+	 * runs a command with OP_QUERY, understood by every server version
+	 *
+	 * @return the reply document
+	 */
+	public static Map<String, Object> runCommand(InetAddress host, int port, String database, Map<String, ?> command,
+			int timeoutInMillis) throws IOException {
+		try (Socket socket = connect(host, port, timeoutInMillis)) {
+			sendCommand(socket, database, command, false);
+			return receiveReply(socket, false);
+		}
+	}
+
+	/**
+	 * runs a command with OP_MSG, needs mongodb 3.6 or later
+	 *
+	 * @return the reply document
+	 */
+	public static Map<String, Object> runCommandWithOpMsg(InetAddress host, int port, String database,
+			Map<String, ?> command, int timeoutInMillis) throws IOException {
+		try (Socket socket = connect(host, port, timeoutInMillis)) {
+			sendCommand(socket, database, command, true);
+			return receiveReply(socket, true);
+		}
+	}
+
+	/**
+	 * sends a command in the given message format
+	 */
+	static void sendCommand(Socket socket, String database, Map<String, ?> command, boolean opMsg) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		if (opMsg) {
+			Map<String, Object> withDatabase = new LinkedHashMap<>(command);
+			withDatabase.put("$db", database);
+			// flagBits, then a single body section (kind 0)
+			Bson.writeInt(body, 0);
+			body.write(0);
+			byte[] document = Bson.encode(withDatabase);
+			body.write(document, 0, document.length);
+			send(socket, OP_MSG, body);
+		} else {
+			Bson.writeInt(body, 0);
+			Bson.writeCString(body, database + ".$cmd");
+			Bson.writeInt(body, 0);
+			Bson.writeInt(body, -1);
+			byte[] document = Bson.encode(command);
+			body.write(document, 0, document.length);
+			send(socket, OP_QUERY, body);
+		}
+	}
+
+	/**
+	 * reads the reply to a command sent in the given message format
+	 */
+	static Map<String, Object> receiveReply(Socket socket, boolean opMsg) throws IOException {
+		if (opMsg) {
+			ByteBuffer reply = receive(socket, OP_MSG);
+			// flagBits
+			reply.getInt();
+			byte kind = reply.get();
+			if (kind != 0) {
+				throw new IOException("unexpected section kind " + kind);
+			}
+			return Bson.decode(reply);
+		}
+		ByteBuffer reply = receive(socket, OP_REPLY);
+		// responseFlags, cursorID, startingFrom, numberReturned
+		reply.position(reply.position() + 4 + 8 + 4);
+		if (reply.getInt() < 1) {
+			throw new IOException("empty reply");
+		}
+		return Bson.decode(reply);
+	}
+
+	/**
+	 * @return true if the reply signals success
+	 */
+	public static boolean isOk(Map<String, Object> reply) {
+		Object ok = reply.get("ok");
+		return ok instanceof Number && ((Number) ok).doubleValue() == 1.0;
+	}
+
+	static Socket connect(InetAddress host, int port, int timeoutInMillis) throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setSoTimeout(timeoutInMillis);
+			socket.setTcpNoDelay(true);
+			socket.connect(new InetSocketAddress(host, port), timeoutInMillis);
+			return socket;
+		} catch (IOException iox) {
+			socket.close();
+			throw iox;
+		}
+	}
+
+	static void send(Socket socket, int opCode, ByteArrayOutputStream body) throws IOException {
+		ByteArrayOutputStream message = new ByteArrayOutputStream(body.size() + 16);
+		Bson.writeInt(message, body.size() + 16);
+		Bson.writeInt(message, REQUEST_ID.incrementAndGet());
+		Bson.writeInt(message, 0);
+		Bson.writeInt(message, opCode);
+		body.writeTo(message);
+
+		OutputStream out = socket.getOutputStream();
+		message.writeTo(out);
+		out.flush();
+	}
+
+	/**
+	 * @return the message without header
+	 */
+	static ByteBuffer receive(Socket socket, int expectedOpCode) throws IOException {
+		DataInputStream in = new DataInputStream(socket.getInputStream());
+		byte[] header = new byte[16];
+		in.readFully(header);
+		ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+		int length = headerBuffer.getInt();
+		headerBuffer.position(12);
+		int opCode = headerBuffer.getInt();
+		if (length < 16 || length > MAX_MESSAGE_SIZE) {
+			throw new IOException("invalid message length: " + length);
+		}
+		if (opCode != expectedOpCode) {
+			throw new IOException("unexpected opCode " + opCode + ", expected " + expectedOpCode);
+		}
+		byte[] body = new byte[length - 16];
+		in.readFully(body);
+		return ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evicts the least recently used distributions (extracted files and
+ * archive) from the artifact store and the extraction directory, until
+ * both together fit into {@code maxSizeInBytes}, and every distribution not
+ * used for {@code maxAgeInMillis}.
+ * <p>
+ * The last use is recorded by the {@link LockingArtifactStore}, files from
+ * before that count as used at their modification time. A distribution
+ * whose lock is held (because it is downloaded or extracted right now) is
+ * skipped. Running processes are not affected, they are started from a
+ * copy in the temp directory.
+ */
+public class ArtifactStorePruner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactStorePruner.class);
+
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private static final List<String> NOT_AN_ARCHIVE = Collections.unmodifiableList(Arrays.asList(
+			Checksums.MARKER_SUFFIX, ".part", ".part.properties"));
+
+	private final File artifactStore;
+	private final File extraction;
+	private final long maxSizeInBytes;
+	private final long maxAgeInMillis;
+
+	public ArtifactStorePruner(File artifactStore, File extraction, long maxSizeInBytes, long maxAgeInMillis) {
+		this.artifactStore = artifactStore;
+		this.extraction = extraction;
+		this.maxSizeInBytes = maxSizeInBytes;
+		this.maxAgeInMillis = maxAgeInMillis;
+	}
+
+	public Result prune() {
+		long now = System.currentTimeMillis();
+		List<Entry> entries = entries();
+		entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+
+		long size = entries.stream().mapToLong(entry -> entry.size).sum();
+		Result result = new Result(size);
+		for (Entry entry : entries) {
+			boolean tooOld = maxAgeInMillis != UNLIMITED && now - entry.lastUsed > maxAgeInMillis;
+			if (!tooOld && size <= maxSizeInBytes) {
+				continue;
+			}
+			if (evict(entry)) {
+				size -= entry.size;
+				result.evicted(entry.name, entry.size);
+			}
+		}
+		LOGGER.info("{}", result);
+		return result;
+	}
+
+	private boolean evict(Entry entry) {
+		if (entry.lockFile == null) {
+			return delete(entry);
+		}
+		ReentrantLock jvmLock = LockingArtifactStore.jvmLock(entry.lockFile);
+		if (jvmLock.isHeldByCurrentThread() || !jvmLock.tryLock()) {
+			LOGGER.debug("{} is in use, not evicted", entry.name);
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(entry.lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock lock = channel.tryLock()) {
+			if (lock == null) {
+				LOGGER.debug("{} is in use by another process, not evicted", entry.name);
+				return false;
+			}
+			return delete(entry);
+		} catch (IOException ex) {
+			LOGGER.warn("could not lock {}", entry.lockFile, ex);
+			return false;
+		} finally {
+			jvmLock.unlock();
+		}
+	}
+
+	private boolean delete(Entry entry) {
+		boolean deleted = true;
+		for (File file : entry.files) {
+			Staging.delete(file);
+			deleted &= !file.exists();
+		}
+		ExtractionCache.invalidate(new File(extraction, entry.name));
+		return deleted;
+	}
+
+	private List<Entry> entries() {
+		Map<String, Entry> byFile = new LinkedHashMap<>();
+		List<Entry> entries = new ArrayList<>();
+		File lockDir = new File(artifactStore, LockingArtifactStore.LOCK_DIR);
+
+		File[] usedFiles = lockDir.listFiles((dir, name) -> name.endsWith(LockingArtifactStore.USED_SUFFIX));
+		for (File used : usedFiles != null ? usedFiles : new File[0]) {
+			String name = used.getName().substring(0, used.getName().length() - LockingArtifactStore.USED_SUFFIX.length());
+			Entry entry = new Entry(name, new File(lockDir, name + ".lock"), used.lastModified());
+			entry.add(new File(extraction, name));
+			archive(used).ifPresent(archive -> {
+				entry.add(archive);
+				entry.add(Checksums.marker(archive));
+			});
+			entry.add(used);
+			register(entry, entries, byFile);
+		}
+
+		// extracted and downloaded without a recorded use
+		File[] extracted = extraction.listFiles(file -> file.isDirectory() && !file.getName().contains(".streaming-") && !file.getName().contains(".extracting-"));
+		for (File dir : extracted != null ? extracted : new File[0]) {
+			if (!byFile.containsKey(dir.getAbsolutePath())) {
+				Entry entry = new Entry(dir.getName(), new File(lockDir, dir.getName() + ".lock"), dir.lastModified());
+				entry.add(dir);
+				register(entry, entries, byFile);
+			}
+		}
+		for (File archive : archives(artifactStore, lockDir)) {
+			if (!byFile.containsKey(archive.getAbsolutePath())) {
+				Entry entry = new Entry(artifactStore.toPath().relativize(archive.toPath()).toString(), null, archive.lastModified());
+				entry.add(archive);
+				entry.add(Checksums.marker(archive));
+				register(entry, entries, byFile);
+			}
+		}
+		return entries;
+	}
+
+	private static void register(Entry entry, List<Entry> entries, Map<String, Entry> byFile) {
+		for (File file : entry.files) {
+			byFile.put(file.getAbsolutePath(), entry);
+		}
+		entries.add(entry);
+	}
+
+	private Optional<File> archive(File used) {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(used.toPath())) {
+			properties.load(in);
+		} catch (IOException ex) {
+			LOGGER.warn("could not read {}", used, ex);
+		}
+		return Optional.ofNullable(properties.getProperty("archive")).map(path -> new File(artifactStore, path));
+	}
+
+	private List<File> archives(File dir, File lockDir) {
+		List<File> archives = new ArrayList<>();
+		File[] children = dir.listFiles();
+		for (File child : children != null ? children : new File[0]) {
+			if (child.equals(lockDir) || child.getAbsoluteFile().equals(extraction.getAbsoluteFile())) {
+				continue;
+			}
+			if (child.isDirectory()) {
+				archives.addAll(archives(child, lockDir));
+			} else if (NOT_AN_ARCHIVE.stream().noneMatch(suffix -> child.getName().endsWith(suffix))
+					&& !child.getName().contains(".streaming-")) {
+				archives.add(child);
+			}
+		}
+		return archives;
+	}
+
+	private static long sizeOf(File file) {
+		File[] children = file.listFiles();
+		if (children == null) {
+			return file.length();
+		}
+		long size = 0;
+		for (File child : children) {
+			size += sizeOf(child);
+		}
+		return size;
+	}
+
+	private static final class Entry {
+		private final String name;
+		private final File lockFile;
+		private final long lastUsed;
+		private final List<File> files = new ArrayList<>();
+		private long size;
+
+		Entry(String name, File lockFile, long lastUsed) {
+			this.name = name;
+			this.lockFile = lockFile;
+			this.lastUsed = lastUsed;
+		}
+
+		void add(File file) {
+			if (file.exists()) {
+				files.add(file);
+				size += sizeOf(file);
+			}
+		}
+	}
+
+	public static final class Result {
+		private final long sizeBefore;
+		private final List<String> evicted = new ArrayList<>();
+		private long freedBytes;
+
+		Result(long sizeBefore) {
+			this.sizeBefore = sizeBefore;
+		}
+
+		void evicted(String name, long size) {
+			evicted.add(name);
+			freedBytes += size;
+		}
+
+		public List<String> evicted() {
+			return Collections.unmodifiableList(evicted);
+		}
+
+		public long freedBytes() {
+			return freedBytes;
+		}
+
+		public long sizeAfter() {
+			return sizeBefore - freedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "evicted " + evicted.size() + " artifacts with " + (freedBytes / 1024 / 1024) + "mb, "
+					+ (sizeAfter() / 1024 / 1024) + "mb left";
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+
+/**
+ * Expected SHA-256 of a distribution archive.
+ */
+@FunctionalInterface
+public interface ChecksumSource {
+
+	/**
+	 * @return lower case hex, empty if unknown
+	 */
+	Optional<String> sha256(DownloadConfig runtime, Distribution distribution);
+
+	default ChecksumSource orElse(ChecksumSource fallback) {
+		return (runtime, distribution) -> {
+			Optional<String> checksum = sha256(runtime, distribution);
+			return checksum.isPresent() ? checksum : fallback.sha256(runtime, distribution);
+		};
+	}
+
+	static ChecksumSource none() {
+		return (runtime, distribution) -> Optional.empty();
+	}
+
+	/**
+	 * @param sha256ByArchivePath checksums keyed by archive path (like {@code linux/mongodb-linux-x86_64-4.0.12.tgz})
+	 */
+	static ChecksumSource pinned(Map<String, String> sha256ByArchivePath) {
+		Map<String, String> copy = new HashMap<>(sha256ByArchivePath);
+		return (runtime, distribution) -> Optional.ofNullable(copy.get(runtime.getPackageResolver().packageFor(distribution).archivePath()))
+				.map(Checksums::normalize);
+	}
+
+	/**
+	 * the {@code .sha256} file published next to each archive, a missing one is remembered as unknown,
+	 * other errors are retried and then thrown as {@link UncheckedIOException}
+	 */
+	static ChecksumSource published() {
+		Map<String, Optional<String>> cache = new ConcurrentHashMap<>();
+		return (runtime, distribution) -> cache.computeIfAbsent(Downloads.downloadUrl(runtime, distribution) + ".sha256", url -> {
+			int attempts = 3;
+			for (int attempt = 1; ; attempt++) {
+				try (InputStream in = Downloads.open(runtime, new URL(url)).getInputStream()) {
+					ByteArrayOutputStream content = new ByteArrayOutputStream();
+					byte[] buffer = new byte[1024];
+					int read;
+					while ((read = in.read(buffer)) != -1 && content.size() < 64 * 1024) {
+						content.write(buffer, 0, read);
+					}
+					return Checksums.parse(new String(content.toByteArray(), StandardCharsets.US_ASCII));
+				} catch (FileNotFoundException e) {
+					LoggerFactory.getLogger(ChecksumSource.class).warn("no checksum published at {}", url);
+					return Optional.empty();
+				} catch (IOException e) {
+					if (attempt >= attempts) {
+						throw new UncheckedIOException("could not fetch checksum from " + url, e);
+					}
+					LoggerFactory.getLogger(ChecksumSource.class).debug("fetching {} failed, try again: {}", url, e.toString());
+					try {
+						Thread.sleep(attempt * 200L);
+					} catch (InterruptedException ix) {
+						Thread.currentThread().interrupt();
+						throw new UncheckedIOException("interrupted while fetching checksum from " + url, e);
+					}
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * sha256 parsing and the {@code <artifact>.sha256} marker written once an
+ * artifact was verified, so it is not hashed again on every start
+ */
+final class Checksums {
+
+	static final String MARKER_SUFFIX = ".sha256";
+
+	private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+	private Checksums() {
+		// no instance
+	}
+
+	static String normalize(String sha256) {
+		String normalized = sha256.trim().toLowerCase();
+		if (!SHA256.matcher(normalized).matches()) {
+			throw new IllegalArgumentException("not a sha256: " + sha256);
+		}
+		return normalized;
+	}
+
+	/**
+	 * @param content of a published {@code .sha256} file: {@code <hex>  <file name>}
+	 */
+	static Optional<String> parse(String content) {
+		String[] tokens = content.trim().split("\\s+");
+		if (tokens.length > 0 && SHA256.matcher(tokens[0].toLowerCase()).matches()) {
+			return Optional.of(tokens[0].toLowerCase());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @throws IOException if the checksums do not match, after {@code corrupt} was deleted
+	 */
+	static void verify(Optional<String> expected, String actual, File corrupt, Object source) throws IOException {
+		if (expected.isPresent() && !expected.get().equals(actual)) {
+			corrupt.delete();
+			throw new IOException("checksum mismatch for " + source + ": expected sha256 " + expected.get() + ", got " + actual);
+		}
+	}
+
+	static File marker(File artifact) {
+		return new File(artifact.getPath() + MARKER_SUFFIX);
+	}
+
+	static void markVerified(File artifact, String sha256, long length) throws IOException {
+		Files.write(marker(artifact).toPath(), (sha256 + " " + length).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * @return true if the artifact was verified before and did not change size since then
+	 */
+	static boolean isMarkedVerified(File artifact) {
+		File marker = marker(artifact);
+		if (!marker.isFile()) {
+			return false;
+		}
+		try {
+			String[] tokens = new String(Files.readAllBytes(marker.toPath()), StandardCharsets.US_ASCII).trim().split(" ");
+			return tokens.length == 2 && Long.parseLong(tokens[1]) == artifact.length();
+		} catch (IOException | NumberFormatException e) {
+			return false;
+		}
+	}
+}
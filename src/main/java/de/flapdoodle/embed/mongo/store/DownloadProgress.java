@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.flapdoodle.embed.process.io.progress.ProgressListener;
+
+/**
+ * reports each new percent once, even if bytes arrive from many threads
+ */
+final class DownloadProgress {
+
+	private final ProgressListener listener;
+	private final String label;
+	private final long length;
+	private final AtomicLong downloaded;
+	private int lastPercent = -1;
+
+	/**
+	 * @param length -1 if unknown, nothing is reported then
+	 */
+	DownloadProgress(ProgressListener listener, String label, long length) {
+		this(listener, label, length, 0);
+	}
+
+	DownloadProgress(ProgressListener listener, String label, long length, long alreadyDownloaded) {
+		this.listener = listener;
+		this.label = label;
+		this.length = length;
+		this.downloaded = new AtomicLong(alreadyDownloaded);
+	}
+
+	void add(int bytes) {
+		long current = downloaded.addAndGet(bytes);
+		if (length > 0) {
+			int percent = (int) (current * 100 / length);
+			synchronized (this) {
+				if (percent > lastPercent) {
+					lastPercent = percent;
+					listener.progress(label, percent);
+				}
+			}
+		}
+	}
+}
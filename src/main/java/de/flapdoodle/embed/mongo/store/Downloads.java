@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Optional;
+
+import de.flapdoodle.embed.mongo.config.MirroredDownloadPath;
+import de.flapdoodle.embed.process.config.store.DistributionDownloadPath;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.ProxyFactory;
+import de.flapdoodle.embed.process.distribution.Distribution;
+
+/**
+ * what every downloader and store in here does the same way as the ones in embed.process
+ */
+public final class Downloads {
+
+	static final int BUFFER_LENGTH = 64 * 1024;
+
+	private Downloads() {
+		// no instance
+	}
+
+	static String downloadUrl(DownloadConfig runtime, Distribution distribution) {
+		DistributionDownloadPath downloadPath = runtime.getDownloadPath();
+		String path = downloadPath instanceof MirroredDownloadPath
+				? ((MirroredDownloadPath) downloadPath).getPath(runtime, distribution)
+				: downloadPath.getPath(distribution);
+		return path + runtime.getPackageResolver().packageFor(distribution).archivePath();
+	}
+
+	/**
+	 * same as the ExtractedArtifactStore, so extraction directories can be shared
+	 */
+	static String asPath(Distribution distribution) {
+		return distribution.platform().name() + "-" + distribution.bitsize().name() + "--" + distribution.version().asInDownloadPath();
+	}
+
+	static File artifactFile(DownloadConfig runtime, Distribution distribution) {
+		return new File(runtime.getArtifactStorePath().asFile(), runtime.getPackageResolver().packageFor(distribution).archivePath());
+	}
+
+	/**
+	 * @return connection with the proxy, user agent and timeouts of runtime
+	 */
+	public static URLConnection open(DownloadConfig runtime, URL url) throws IOException {
+		Optional<Proxy> proxy = runtime.proxyFactory().map(ProxyFactory::createProxy);
+		URLConnection connection = proxy.isPresent() ? url.openConnection(proxy.get()) : url.openConnection();
+		connection.setRequestProperty("User-Agent", runtime.getUserAgent());
+		connection.setConnectTimeout(runtime.getTimeoutConfig().getConnectionTimeout());
+		connection.setReadTimeout(runtime.getTimeoutConfig().getReadTimeout());
+		return connection;
+	}
+
+	static String speed(long bytes, long nanos) {
+		long millis = Math.max(1, nanos / 1000000);
+		return (bytes * 1000 / millis / 1024) + "kb/s";
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.flapdoodle.embed.mongo.Command;
+
+/**
+ * extracted executables of this jvm, keyed by the extraction directory of
+ * their distribution, so a starter for another command does not look into
+ * the archive or the extraction directory again
+ */
+public final class ExtractionCache {
+
+	private static final ConcurrentMap<File, ConcurrentMap<Command, File>> EXECUTABLES = new ConcurrentHashMap<>();
+
+	private ExtractionCache() {
+		// no instance
+	}
+
+	static Optional<File> executable(File distributionDir, Command command) {
+		Map<Command, File> executables = EXECUTABLES.get(distributionDir.getAbsoluteFile());
+		File executable = executables != null ? executables.get(command) : null;
+		if (executable != null && !executable.isFile()) {
+			executables.remove(command, executable);
+			return Optional.empty();
+		}
+		return Optional.ofNullable(executable);
+	}
+
+	static void put(File distributionDir, Command command, File executable) {
+		EXECUTABLES.computeIfAbsent(distributionDir.getAbsoluteFile(), dir -> new ConcurrentHashMap<>()).put(command, executable);
+	}
+
+	/**
+	 * forget everything extracted to this directory, after it was deleted
+	 */
+	public static void invalidate(File distributionDir) {
+		EXECUTABLES.remove(distributionDir.getAbsoluteFile());
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.StartupTimings;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Only one process (and one thread in it) downloads and extracts a
+ * distribution at a time, all others wait on a file lock in
+ * {@code <artifact store>/.locks} and then find the result in place.
+ * The wait is recorded as {@link StartupTimings.Phase#ARTIFACT_LOCK}, each
+ * use next to the lock for the {@link ArtifactStorePruner}.
+ */
+public class LockingArtifactStore implements IArtifactStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LockingArtifactStore.class);
+
+	static final String LOCK_DIR = ".locks";
+	static final String USED_SUFFIX = ".used";
+
+	// file locks are held by the whole jvm, threads must be kept apart otherwise
+	private static final ConcurrentMap<String, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+	private final IArtifactStore delegate;
+	private final DownloadConfig downloadConfig;
+
+	public LockingArtifactStore(IArtifactStore delegate, DownloadConfig downloadConfig) {
+		this.delegate = delegate;
+		this.downloadConfig = downloadConfig;
+	}
+
+	@Override
+	public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+		File lockFile = lockFile(distribution);
+		ReentrantLock jvmLock = jvmLock(lockFile);
+
+		long start = System.nanoTime();
+		jvmLock.lock();
+		try {
+			if (jvmLock.getHoldCount() > 1) {
+				// nested locking stores, the outer one holds the file lock already
+				return delegate.extractFileSet(distribution);
+			}
+			try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				// released when the channel is closed
+				lock(channel, lockFile);
+				waited(distribution, start);
+				Optional<ExtractedFileSet> fileSet = delegate.extractFileSet(distribution);
+				used(distribution, lockFile);
+				return fileSet;
+			}
+		} finally {
+			jvmLock.unlock();
+		}
+	}
+
+	static ReentrantLock jvmLock(File lockFile) {
+		return JVM_LOCKS.computeIfAbsent(lockFile.getAbsolutePath(), key -> new ReentrantLock());
+	}
+
+	/**
+	 * the last use for the {@link ArtifactStorePruner}: the modification time of
+	 * {@code <lock>.used}, which knows the archive of the distribution
+	 */
+	private void used(Distribution distribution, File lockFile) {
+		File used = new File(lockFile.getPath().substring(0, lockFile.getPath().length() - ".lock".length()) + USED_SUFFIX);
+		if (used.isFile() && used.setLastModified(System.currentTimeMillis())) {
+			return;
+		}
+		Properties properties = new Properties();
+		properties.setProperty("archive", downloadConfig.getPackageResolver().packageFor(distribution).archivePath());
+		try (OutputStream out = new FileOutputStream(used)) {
+			properties.store(out, null);
+		} catch (IOException ex) {
+			LOGGER.warn("could not record use of {} in {}", distribution, used, ex);
+		}
+	}
+
+	private static FileLock lock(FileChannel channel, File lockFile) throws IOException {
+		FileLock lock = channel.tryLock();
+		if (lock == null) {
+			LOGGER.info("waiting for another process preparing the same distribution ({})", lockFile);
+			lock = channel.lock();
+		}
+		return lock;
+	}
+
+	private static void waited(Distribution distribution, long start) {
+		long end = System.nanoTime();
+		StartupTimings.record(StartupTimings.Phase.ARTIFACT_LOCK, start, end);
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(end - start);
+		if (waitedMillis > 100) {
+			LOGGER.info("waited {}ms for the lock on {}", waitedMillis, distribution);
+		}
+	}
+
+	private File lockFile(Distribution distribution) throws IOException {
+		File lockDir = new File(downloadConfig.getArtifactStorePath().asFile(), LOCK_DIR);
+		if (!lockDir.isDirectory() && !lockDir.mkdirs() && !lockDir.isDirectory()) {
+			throw new IOException("Could NOT create Directory " + lockDir);
+		}
+		return new File(lockDir, Downloads.asPath(distribution) + ".lock");
+	}
+
+	@Override
+	public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+		delegate.removeFileSet(distribution, files);
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.MultiCommandPaths;
+import de.flapdoodle.embed.mongo.Paths;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.CommonsArchiveEntryAdapter;
+import de.flapdoodle.embed.process.extract.DirectoryAndExecutableNaming;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.extract.ExtractedFileSets;
+import de.flapdoodle.embed.process.extract.ExtractionMatch;
+import de.flapdoodle.embed.process.extract.FilesToExtract;
+import de.flapdoodle.embed.process.extract.TempNaming;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.store.Downloader;
+import de.flapdoodle.embed.process.store.ExtractedArtifactStore;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Same layout as the {@link ExtractedArtifactStore}, but the first
+ * extraction of a distribution pulls the executables of all
+ * {@code extractTogether} commands out of the archive in one pass.
+ * <p>
+ * Every executable found is remembered in the {@link ExtractionCache}, so a
+ * store for one of the other commands (e.g. mongoimport after mongod) only
+ * copies its executable to the temp directory.
+ * Commands missing from the archive are skipped, only the own command must
+ * be there.
+ */
+public class MultiCommandArtifactStore implements IArtifactStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MultiCommandArtifactStore.class);
+
+	private final Command command;
+	private final MultiCommandPaths paths;
+	private final DownloadConfig downloadConfig;
+	private final Downloader downloader;
+	private final DirectoryAndExecutableNaming extraction;
+	private final DirectoryAndExecutableNaming temp;
+
+	public MultiCommandArtifactStore(Command command, Collection<Command> extractTogether, DownloadConfig downloadConfig,
+			Downloader downloader, DirectoryAndExecutableNaming extraction, DirectoryAndExecutableNaming temp) {
+		this.command = command;
+		this.paths = new MultiCommandPaths(command, extractTogether);
+		this.downloadConfig = downloadConfig;
+		this.downloader = downloader;
+		this.extraction = extraction;
+		this.temp = temp;
+	}
+
+	@Override
+	public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+		File baseDir = new File(extraction.getDirectory().asFile(), Downloads.asPath(distribution));
+		Optional<File> executable = ExtractionCache.executable(baseDir, command);
+		if (!executable.isPresent()) {
+			executable = alreadyExtracted(baseDir, distribution);
+		}
+		if (!executable.isPresent()) {
+			executable = Optional.ofNullable(extractAll(distribution, baseDir).get(command));
+			if (!executable.isPresent()) {
+				throw new IOException(command.commandName() + " not found in " + Downloads.artifactFile(downloadConfig, distribution));
+			}
+		}
+		ExtractedFileSet fileSet = ExtractedFileSet.builder(baseDir)
+				.baseDirIsGenerated(false)
+				.executable(executable.get())
+				.build();
+		return Optional.of(ExtractedFileSets.copy(fileSet, temp.getDirectory(), temp.getExecutableNaming()));
+	}
+
+	@Override
+	public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+		ExtractedFileSets.delete(files);
+	}
+
+	private Optional<File> alreadyExtracted(File baseDir, Distribution distribution) {
+		File file = executableIn(baseDir, command, distribution);
+		if (file.isFile()) {
+			ExtractionCache.put(baseDir, command, file);
+			return Optional.of(file);
+		}
+		return Optional.empty();
+	}
+
+	private Map<Command, File> extractAll(Distribution distribution, File baseDir) throws IOException {
+		File archive = archive(distribution);
+		DistributionPackage distributionPackage = paths.packageFor(distribution);
+		TempNaming naming = extraction.getExecutableNaming();
+
+		File staging = Staging.create(baseDir, "extracting");
+		try {
+			FilesToExtract toExtract = new FilesToExtract(new FixedPath(staging.getAbsolutePath()), naming, distributionPackage.fileSet());
+			if (distributionPackage.archiveType() == ArchiveType.ZIP) {
+				extractZip(archive, toExtract);
+			} else {
+				extractTgz(archive, toExtract);
+			}
+
+			// same order as the commands, the own one first
+			Iterator<FileSet.Entry> entries = distributionPackage.fileSet().entries().iterator();
+			Map<Command, File> executables = new LinkedHashMap<>();
+			for (Command it : paths.commands()) {
+				FileSet.Entry entry = entries.next();
+				File file = new File(staging, entry.type() == FileType.Executable
+						? FilesToExtract.executableName(naming, entry)
+						: FilesToExtract.fileName(entry));
+				if (!file.isFile()) {
+					LOGGER.info("{} not found in {}", it.commandName(), archive);
+					continue;
+				}
+				// named as if extracted on its own, so the ExtractedArtifactStore finds it too
+				File target = executableIn(baseDir, it, distribution);
+				if (!baseDir.isDirectory() && !baseDir.mkdirs()) {
+					throw new IOException("Could NOT create Directory " + baseDir);
+				}
+				Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				target.setExecutable(true);
+				ExtractionCache.put(baseDir, it, target);
+				executables.put(it, target);
+			}
+			return executables;
+		} finally {
+			Staging.delete(staging);
+		}
+	}
+
+	private File executableIn(File baseDir, Command command, Distribution distribution) {
+		FileSet.Entry entry = new Paths(command).getFileSet(distribution).entries().get(0);
+		return new File(baseDir, FilesToExtract.executableName(extraction.getExecutableNaming(), entry));
+	}
+
+	private File archive(Distribution distribution) throws IOException {
+		File archive = Downloads.artifactFile(downloadConfig, distribution);
+		if (!archive.isFile()) {
+			File downloaded = downloader.download(downloadConfig, distribution);
+			if (!archive.getParentFile().isDirectory() && !archive.getParentFile().mkdirs()) {
+				throw new IOException("Could NOT create Directory " + archive.getParentFile());
+			}
+			Files.move(downloaded.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return archive;
+	}
+
+	private static void extractTgz(File archive, FilesToExtract toExtract) throws IOException {
+		try (TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(
+				new BufferedInputStream(Files.newInputStream(archive.toPath()), Downloads.BUFFER_LENGTH)))) {
+			ArchiveEntry entry;
+			while (!toExtract.nothingLeft() && (entry = tar.getNextEntry()) != null) {
+				write(toExtract, entry, tar);
+			}
+		}
+	}
+
+	private static void extractZip(File archive, FilesToExtract toExtract) throws IOException {
+		try (ZipFile zip = new ZipFile(archive)) {
+			Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+			while (!toExtract.nothingLeft() && entries.hasMoreElements()) {
+				ZipArchiveEntry entry = entries.nextElement();
+				try (InputStream in = zip.getInputStream(entry)) {
+					write(toExtract, entry, in);
+				}
+			}
+		}
+	}
+
+	private static void write(FilesToExtract toExtract, ArchiveEntry entry, InputStream in) throws IOException {
+		ExtractionMatch match = toExtract.find(new CommonsArchiveEntryAdapter(entry));
+		if (match != null) {
+			match.write(in, entry.getSize());
+		}
+	}
+}
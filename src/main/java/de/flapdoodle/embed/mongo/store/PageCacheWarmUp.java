@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+
+/**
+ * Maps the extracted executables read-only and touches every page in the
+ * background, so they are in the page cache when the process is spawned.
+ * Files written just before (like the temp copy of the default stores) are
+ * in the page cache anyway, so this only pays off for files read from disk.
+ */
+public final class PageCacheWarmUp {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PageCacheWarmUp.class);
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "embedmongo-warm-up");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+
+	private final long startNanos;
+	private final CompletableFuture<Long> endNanos = new CompletableFuture<>();
+
+	private PageCacheWarmUp(long startNanos) {
+		this.startNanos = startNanos;
+	}
+
+	public static PageCacheWarmUp start(ExtractedFileSet files) {
+		PageCacheWarmUp warmUp = new PageCacheWarmUp(System.nanoTime());
+		List<File> all = new ArrayList<>(files.libraryFiles());
+		all.add(0, files.executable());
+		EXECUTOR.execute(() -> {
+			long bytes = 0;
+			for (File file : all) {
+				bytes += touch(file);
+			}
+			long end = System.nanoTime();
+			LOGGER.debug("{}kb of {} in the page cache after {}ms", bytes / 1024, files.executable(), (end - warmUp.startNanos) / 1000000);
+			warmUp.endNanos.complete(end);
+		});
+		return warmUp;
+	}
+
+	public long startNanos() {
+		return startNanos;
+	}
+
+	/**
+	 * @return end of the warm-up, or {@code nowNanos} if it is still running
+	 */
+	public long endNanos(long nowNanos) {
+		return endNanos.isDone() ? Math.min(endNanos.join(), nowNanos) : nowNanos;
+	}
+
+	public boolean isDone() {
+		return endNanos.isDone();
+	}
+
+	private static long touch(File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = Math.min(channel.size(), Integer.MAX_VALUE);
+			channel.map(FileChannel.MapMode.READ_ONLY, 0, size).load();
+			return size;
+		} catch (IOException | RuntimeException ex) {
+			LOGGER.debug("could not warm up {}", file, ex);
+			return 0;
+		}
+	}
+}
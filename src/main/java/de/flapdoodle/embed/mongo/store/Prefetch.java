@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.io.progress.Slf4jProgressListener;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Downloads, verifies and extracts distributions into the {@link Defaults}
+ * artifact store and extraction directory, e.g. while building a ci image,
+ * so no test has to wait for a download:
+ * 
+ * <pre>
+ * java -cp ... de.flapdoodle.embed.mongo.store.Prefetch --versions V3_6,V4_0 --platforms Linux --commands mongod,mongos --threads 4
+ * </pre>
+ * 
+ * Without arguments it fetches mongod of every current {@link Version.Main}
+ * for this platform. Each distribution is extracted in one pass for all
+ * commands (see {@link MultiCommandArtifactStore}).
+ */
+public final class Prefetch {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Prefetch.class);
+
+	private Prefetch() {
+		// no instance
+	}
+
+	public static void main(String[] args) {
+		Options options;
+		try {
+			options = Options.parse(args);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println("usage: Prefetch [--versions V4_0,3.6.5,..] [--platforms Linux,OS_X,Windows,..] [--bits B64] [--commands mongod,mongos,..] [--threads n]");
+			System.exit(2);
+			return;
+		}
+		System.exit(run(options, System.out) == 0 ? 0 : 1);
+	}
+
+	/**
+	 * @return number of failed distributions
+	 */
+	static int run(Options options, PrintStream out) {
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(options.threads, runnable -> {
+			Thread thread = new Thread(runnable, "embedmongo-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Map<Distribution, Future<Fetched>> fetches = new LinkedHashMap<>();
+		try {
+			for (de.flapdoodle.embed.process.distribution.Version version : options.versions) {
+				for (Platform platform : options.platforms) {
+					Distribution distribution = Distribution.of(version, platform, options.bitSize);
+					fetches.put(distribution, executor.submit(() -> fetch(distribution, options.commands)));
+				}
+			}
+
+			int failed = 0;
+			long downloaded = 0;
+			for (Map.Entry<Distribution, Future<Fetched>> entry : fetches.entrySet()) {
+				try {
+					Fetched fetched = entry.getValue().get();
+					downloaded += fetched.downloadedBytes;
+					out.printf("%-40s %8dms %8dkb%s%n", entry.getKey(), TimeUnit.NANOSECONDS.toMillis(fetched.nanos),
+							fetched.archiveBytes / 1024, fetched.downloadedBytes > 0 ? " downloaded" : "");
+				} catch (ExecutionException ex) {
+					failed++;
+					LOGGER.error("could not prefetch {}", entry.getKey(), ex.getCause());
+					out.printf("%-40s FAILED: %s%n", entry.getKey(), ex.getCause());
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(ex);
+				}
+			}
+			long nanos = System.nanoTime() - start;
+			out.printf("%d distributions (%d failed) with %d threads in %dms, downloaded %dkb with %s%n", fetches.size(), failed,
+					options.threads, TimeUnit.NANOSECONDS.toMillis(nanos), downloaded / 1024, Downloads.speed(downloaded, nanos));
+			return failed;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Fetched fetch(Distribution distribution, List<Command> commands) throws Exception {
+		Command command = commands.get(0);
+		// console progress of parallel downloads would be interleaved
+		DownloadConfig downloadConfig = Defaults.downloadConfigFor(command)
+				.progressListener(new Slf4jProgressListener(LOGGER))
+				.build();
+		File archive = Downloads.artifactFile(downloadConfig, distribution);
+		long before = archive.isFile() ? archive.length() : 0;
+
+		long start = System.nanoTime();
+		IArtifactStore store = Defaults.multiCommandArtifactStoreFor(downloadConfig, command,
+				commands.subList(1, commands.size()).toArray(new Command[0]));
+		ExtractedFileSet files = store.extractFileSet(distribution)
+				.orElseThrow(() -> new IllegalStateException("nothing extracted for " + distribution));
+		// only the copy in the temp directory, the extraction stays
+		store.removeFileSet(distribution, files);
+		long nanos = System.nanoTime() - start;
+
+		long archiveBytes = archive.isFile() ? archive.length() : 0;
+		return new Fetched(nanos, archiveBytes, before > 0 ? 0 : archiveBytes);
+	}
+
+	private static final class Fetched {
+		private final long nanos;
+		private final long archiveBytes;
+		private final long downloadedBytes;
+
+		Fetched(long nanos, long archiveBytes, long downloadedBytes) {
+			this.nanos = nanos;
+			this.archiveBytes = archiveBytes;
+			this.downloadedBytes = downloadedBytes;
+		}
+	}
+
+	static final class Options {
+		final List<de.flapdoodle.embed.process.distribution.Version> versions;
+		final List<Platform> platforms;
+		final BitSize bitSize;
+		final List<Command> commands;
+		final int threads;
+
+		private Options(List<de.flapdoodle.embed.process.distribution.Version> versions, List<Platform> platforms,
+				BitSize bitSize, List<Command> commands, int threads) {
+			this.versions = versions;
+			this.platforms = platforms;
+			this.bitSize = bitSize;
+			this.commands = commands;
+			this.threads = threads;
+		}
+
+		static Options parse(String... args) {
+			List<de.flapdoodle.embed.process.distribution.Version> versions = currentVersions();
+			List<Platform> platforms = Arrays.asList(Platform.detect());
+			BitSize bitSize = BitSize.B64;
+			List<Command> commands = Arrays.asList(Command.MongoD);
+			int threads = 4;
+
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				}
+				List<String> values = Arrays.asList(args[i + 1].split(","));
+				switch (args[i]) {
+					case "--versions":
+						versions = map(values, Options::version);
+						break;
+					case "--platforms":
+						platforms = map(values, Platform::valueOf);
+						break;
+					case "--bits":
+						bitSize = BitSize.valueOf(args[i + 1]);
+						break;
+					case "--commands":
+						commands = map(values, Options::command);
+						break;
+					case "--threads":
+						threads = Integer.parseInt(args[i + 1]);
+						if (threads < 1) {
+							throw new IllegalArgumentException("threads must be at least 1: " + threads);
+						}
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+			return new Options(versions, platforms, bitSize, commands, threads);
+		}
+
+		private static <T> List<T> map(List<String> values, java.util.function.Function<String, T> parser) {
+			List<T> result = new ArrayList<>();
+			for (String value : values) {
+				if (!value.trim().isEmpty()) {
+					result.add(parser.apply(value.trim()));
+				}
+			}
+			if (result.isEmpty()) {
+				throw new IllegalArgumentException("no values in " + values);
+			}
+			return result;
+		}
+
+		private static de.flapdoodle.embed.process.distribution.Version version(String value) {
+			for (Version.Main main : Version.Main.values()) {
+				if (main.name().equalsIgnoreCase(value)) {
+					return main;
+				}
+			}
+			return de.flapdoodle.embed.process.distribution.Version.of(value);
+		}
+
+		private static Command command(String value) {
+			for (Command command : Command.values()) {
+				if (command.name().equalsIgnoreCase(value) || command.commandName().equals(value)) {
+					return command;
+				}
+			}
+			throw new IllegalArgumentException("unknown command " + value);
+		}
+
+		/**
+		 * every version in {@link Version.Main} which is not deprecated, once
+		 */
+		private static List<de.flapdoodle.embed.process.distribution.Version> currentVersions() {
+			Map<String, de.flapdoodle.embed.process.distribution.Version> versions = new LinkedHashMap<>();
+			for (Version.Main main : Version.Main.values()) {
+				try {
+					if (!Version.Main.class.getField(main.name()).isAnnotationPresent(Deprecated.class)) {
+						versions.putIfAbsent(main.asInDownloadPath(), main);
+					}
+				} catch (NoSuchFieldException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+			return new ArrayList<>(versions.values());
+		}
+	}
+}
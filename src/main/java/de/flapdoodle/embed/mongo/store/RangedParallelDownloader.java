@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.io.directories.PropertyOrPlatformTempDir;
+import de.flapdoodle.embed.process.io.file.Files;
+import de.flapdoodle.embed.process.io.progress.ProgressListener;
+import de.flapdoodle.embed.process.store.Downloader;
+
+/**
+ * Downloads an archive over several connections, each fetching one HTTP
+ * range into its own region of a preallocated file. Falls back to a single
+ * stream if the server does not advertise {@code Accept-Ranges: bytes}.
+ */
+public class RangedParallelDownloader implements Downloader {
+
+	public static final int DEFAULT_CONNECTIONS = 4;
+	public static final long DEFAULT_MIN_CHUNK_SIZE = 8 * 1024 * 1024L;
+
+	private final int connections;
+	private final long minChunkSize;
+	private final ChecksumSource checksums;
+
+	public RangedParallelDownloader() {
+		this(DEFAULT_CONNECTIONS);
+	}
+
+	public RangedParallelDownloader(int connections) {
+		this(connections, DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	public RangedParallelDownloader(int connections, long minChunkSize) {
+		this(connections, minChunkSize, ChecksumSource.none());
+	}
+
+	/**
+	 * @param checksums ranges arrive out of order, so the file is hashed once
+	 * after the download, while it is still in the page cache
+	 */
+	public RangedParallelDownloader(int connections, long minChunkSize, ChecksumSource checksums) {
+		if (connections < 1) {
+			throw new IllegalArgumentException("connections must be at least 1: " + connections);
+		}
+		if (minChunkSize < 1) {
+			throw new IllegalArgumentException("minChunkSize must be positive: " + minChunkSize);
+		}
+		this.connections = connections;
+		this.minChunkSize = minChunkSize;
+		this.checksums = checksums;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public String getDownloadUrl(DownloadConfig runtime, Distribution distribution) {
+		return Downloads.downloadUrl(runtime, distribution);
+	}
+
+	@Override
+	public File download(DownloadConfig runtime, Distribution distribution) throws IOException {
+		String progressLabel = "Download " + distribution;
+		ProgressListener progress = runtime.getProgressListener();
+		progress.start(progressLabel);
+
+		File target = Files.createTempFile(PropertyOrPlatformTempDir.defaultInstance(),
+				runtime.getFileNaming().nameFor(runtime.getDownloadPrefix(),
+						"." + runtime.getPackageResolver().packageFor(distribution).archiveType()));
+		if (!target.canWrite()) {
+			throw new IOException("Can not write " + target);
+		}
+
+		URL url = new URL(Downloads.downloadUrl(runtime, distribution));
+		long start = System.nanoTime();
+		try {
+			long length = probeRangeSupport(runtime, url);
+			List<Range> ranges = length > 0 ? split(length, connections, minChunkSize) : new ArrayList<>();
+			long downloaded;
+			if (ranges.size() > 1) {
+				progress.info(progressLabel, "DownloadSize: " + length + " in " + ranges.size() + " ranges");
+				downloaded = downloadRanges(runtime, url, target, ranges, new DownloadProgress(progress, progressLabel, length));
+			} else {
+				downloaded = downloadStream(runtime, url, target, progress, progressLabel);
+			}
+			Optional<String> expected = checksums.sha256(runtime, distribution);
+			if (expected.isPresent()) {
+				String sha256 = Sha256.of(target);
+				Checksums.verify(expected, sha256, target, url);
+				File artifact = Downloads.artifactFile(runtime, distribution);
+				if (artifact.getParentFile().isDirectory() || artifact.getParentFile().mkdirs()) {
+					Checksums.markVerified(artifact, sha256, target.length());
+				}
+			}
+			progress.info(progressLabel, "downloaded with " + Downloads.speed(downloaded, System.nanoTime() - start));
+		}
+		catch (IOException | RuntimeException e) {
+			target.delete();
+			throw e;
+		}
+		progress.done(progressLabel);
+		return target;
+	}
+
+	/**
+	 * @return content length if the server accepts byte ranges, -1 otherwise
+	 */
+	private static long probeRangeSupport(DownloadConfig runtime, URL url) throws IOException {
+		URLConnection connection = Downloads.open(runtime, url);
+		if (!(connection instanceof HttpURLConnection)) {
+			return -1;
+		}
+		HttpURLConnection http = (HttpURLConnection) connection;
+		http.setRequestMethod("HEAD");
+		try {
+			if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+				// no HEAD support (or an error), the plain GET reports it
+				return -1;
+			}
+			String acceptRanges = http.getHeaderField("Accept-Ranges");
+			if (acceptRanges == null || !acceptRanges.trim().equalsIgnoreCase("bytes")) {
+				return -1;
+			}
+			return http.getContentLengthLong();
+		} finally {
+			http.disconnect();
+		}
+	}
+
+	private long downloadRanges(DownloadConfig runtime, URL url, File target, List<Range> ranges, DownloadProgress progress) throws IOException {
+		AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(ranges.size(), runnable -> {
+			Thread thread = new Thread(runnable, "mongo-download-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+			file.setLength(ranges.get(ranges.size() - 1).end + 1);
+			FileChannel channel = file.getChannel();
+
+			List<Future<Long>> parts = new ArrayList<>();
+			for (Range range : ranges) {
+				parts.add(executor.submit(() -> downloadRange(runtime, url, channel, range, progress)));
+			}
+			long downloaded = 0;
+			for (Future<Long> part : parts) {
+				downloaded += await(part);
+			}
+			channel.force(false);
+			return downloaded;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static long downloadRange(DownloadConfig runtime, URL url, FileChannel channel, Range range, DownloadProgress progress) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) Downloads.open(runtime, url);
+		connection.setRequestProperty("Range", "bytes=" + range.start + "-" + range.end);
+		try {
+			if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+				throw new IOException("Range " + range + " of " + url + " not served: " + connection.getResponseCode());
+			}
+			long position = range.start;
+			try (InputStream in = connection.getInputStream()) {
+				byte[] buffer = new byte[Downloads.BUFFER_LENGTH];
+				int read;
+				while ((read = in.read(buffer)) != -1 && !Thread.currentThread().isInterrupted()) {
+					ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+					while (bytes.hasRemaining()) {
+						position += channel.write(bytes, position);
+					}
+					progress.add(read);
+				}
+			}
+			long written = position - range.start;
+			if (written != range.length()) {
+				throw new IOException("Range " + range + " of " + url + " incomplete: got " + written + " bytes");
+			}
+			return written;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static long downloadStream(DownloadConfig runtime, URL url, File target, ProgressListener listener, String progressLabel) throws IOException {
+		URLConnection connection = Downloads.open(runtime, url);
+		DownloadProgress progress = new DownloadProgress(listener, progressLabel, connection.getContentLengthLong());
+		long downloaded = 0;
+		try (InputStream in = connection.getInputStream();
+				FileChannel channel = new RandomAccessFile(target, "rw").getChannel()) {
+			byte[] buffer = new byte[Downloads.BUFFER_LENGTH];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+				while (bytes.hasRemaining()) {
+					downloaded += channel.write(bytes);
+				}
+				progress.add(read);
+			}
+		}
+		return downloaded;
+	}
+
+	private static long await(Future<Long> part) throws IOException {
+		try {
+			return part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("download interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("download failed", e.getCause());
+		}
+	}
+
+	/**
+	 * splits {@code length} bytes in at most {@code connections} ranges, no
+	 * range (but the last) smaller than {@code minChunkSize}
+	 */
+	static List<Range> split(long length, int connections, long minChunkSize) {
+		long count = Math.max(1, Math.min(connections, length / minChunkSize));
+		long chunkSize = length / count;
+		List<Range> ranges = new ArrayList<>();
+		long start = 0;
+		for (int i = 0; i < count; i++) {
+			long end = i == count - 1 ? length - 1 : start + chunkSize - 1;
+			ranges.add(new Range(start, end));
+			start = end + 1;
+		}
+		return ranges;
+	}
+
+	static final class Range {
+		final long start;
+		/**
+		 * inclusive, like in the http header
+		 */
+		final long end;
+
+		Range(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		long length() {
+			return end - start + 1;
+		}
+
+		@Override
+		public String toString() {
+			return start + "-" + end;
+		}
+	}
+}
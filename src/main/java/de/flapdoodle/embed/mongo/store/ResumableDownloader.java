@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.io.progress.ProgressListener;
+import de.flapdoodle.embed.process.store.Downloader;
+
+/**
+ * Downloads into {@code <artifact>.part} inside the artifact store path and
+ * keeps url, ETag and expected length in {@code <artifact>.part.properties}.
+ * A later download of the same url continues a partial file with
+ * {@code Range} and {@code If-Range}, so an interrupted download does not
+ * start from byte zero again.
+ * <p>
+ * Only a complete file is returned, the artifact store then moves it to
+ * its final name.
+ */
+public class ResumableDownloader implements Downloader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResumableDownloader.class);
+
+	static final String PART_SUFFIX = ".part";
+	static final String META_SUFFIX = ".part.properties";
+
+	private static final String URL = "url";
+	private static final String ETAG = "etag";
+	private static final String LENGTH = "length";
+
+	private final ChecksumSource checksums;
+
+	public ResumableDownloader() {
+		this(ChecksumSource.none());
+	}
+
+	/**
+	 * @param checksums the sha256 is computed while the archive is written and compared to this one
+	 */
+	public ResumableDownloader(ChecksumSource checksums) {
+		this.checksums = checksums;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public String getDownloadUrl(DownloadConfig runtime, Distribution distribution) {
+		return Downloads.downloadUrl(runtime, distribution);
+	}
+
+	@Override
+	public File download(DownloadConfig runtime, Distribution distribution) throws IOException {
+		String progressLabel = "Download " + distribution;
+		ProgressListener progress = runtime.getProgressListener();
+		progress.start(progressLabel);
+
+		File artifact = Downloads.artifactFile(runtime, distribution);
+		File part = new File(artifact.getPath() + PART_SUFFIX);
+		File metaFile = new File(artifact.getPath() + META_SUFFIX);
+		File parent = part.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Could NOT create Directory " + parent);
+		}
+
+		URL url = new URL(Downloads.downloadUrl(runtime, distribution));
+		long start = System.nanoTime();
+
+		Optional<Meta> resumable = Meta.read(metaFile)
+				.filter(meta -> meta.url.equals(url.toString()))
+				.filter(meta -> meta.etag.isPresent())
+				.filter(meta -> part.isFile() && part.length() > 0 && (meta.length < 0 || part.length() < meta.length));
+
+		long offset = resumable.isPresent() ? part.length() : 0;
+		URLConnection connection = connect(runtime, url, resumable, offset);
+		Meta meta;
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			int status = http.getResponseCode();
+			if (offset > 0 && status == HttpURLConnection.HTTP_PARTIAL && rangeStartsAt(http, offset)) {
+				progress.info(progressLabel, "resume at " + offset + " of " + resumable.get().length);
+				meta = resumable.get();
+			} else {
+				if (offset > 0) {
+					progress.info(progressLabel, "artifact changed or range not served (" + status + "), start again");
+					offset = 0;
+					if (status != HttpURLConnection.HTTP_OK) {
+						http.disconnect();
+						http = (HttpURLConnection) connect(runtime, url, Optional.empty(), 0);
+						status = http.getResponseCode();
+					}
+					connection = http;
+				}
+				if (status != HttpURLConnection.HTTP_OK) {
+					throw new IOException("Could not download " + url + ": " + status + " " + http.getResponseMessage());
+				}
+				meta = new Meta(url.toString(), Optional.ofNullable(http.getHeaderField("ETag")), http.getContentLengthLong());
+			}
+		} else {
+			meta = new Meta(url.toString(), Optional.empty(), connection.getContentLengthLong());
+		}
+		meta.write(metaFile);
+
+		MessageDigest digest = Sha256.digest();
+		if (offset > 0) {
+			Sha256.update(digest, part.toPath(), offset);
+		}
+		long downloaded = 0;
+		try (InputStream in = connection.getInputStream();
+				OutputStream out = new FileOutputStream(part, offset > 0)) {
+			DownloadProgress downloadProgress = new DownloadProgress(progress, progressLabel, meta.length, offset);
+			byte[] buffer = new byte[Downloads.BUFFER_LENGTH];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+				digest.update(buffer, 0, read);
+				downloaded += read;
+				downloadProgress.add(read);
+			}
+		}
+
+		if (meta.length >= 0 && part.length() != meta.length) {
+			throw new IOException("Download of " + url + " incomplete: " + part.length() + " of " + meta.length + " bytes, will resume next time");
+		}
+		metaFile.delete();
+		String sha256 = Sha256.hex(digest.digest());
+		Optional<String> expected = checksums.sha256(runtime, distribution);
+		Checksums.verify(expected, sha256, part, url);
+		if (expected.isPresent()) {
+			Checksums.markVerified(artifact, sha256, part.length());
+		}
+		progress.info(progressLabel, "downloaded with " + Downloads.speed(downloaded, System.nanoTime() - start));
+		progress.done(progressLabel);
+		return part;
+	}
+
+	private static URLConnection connect(DownloadConfig runtime, URL url, Optional<Meta> resumable, long offset) throws IOException {
+		URLConnection connection = Downloads.open(runtime, url);
+		if (resumable.isPresent() && offset > 0) {
+			connection.setRequestProperty("Range", "bytes=" + offset + "-");
+			connection.setRequestProperty("If-Range", resumable.get().etag.get());
+		}
+		return connection;
+	}
+
+	private static boolean rangeStartsAt(HttpURLConnection connection, long offset) {
+		String contentRange = connection.getHeaderField("Content-Range");
+		return contentRange != null && contentRange.trim().startsWith("bytes " + offset + "-");
+	}
+
+	static final class Meta {
+		final String url;
+		final Optional<String> etag;
+		/**
+		 * -1 if unknown
+		 */
+		final long length;
+
+		Meta(String url, Optional<String> etag, long length) {
+			this.url = url;
+			this.etag = etag;
+			this.length = length;
+		}
+
+		static Optional<Meta> read(File file) {
+			if (!file.isFile()) {
+				return Optional.empty();
+			}
+			Properties properties = new Properties();
+			try (InputStream in = new FileInputStream(file)) {
+				properties.load(in);
+				return Optional.of(new Meta(properties.getProperty(URL, ""),
+						Optional.ofNullable(properties.getProperty(ETAG)),
+						Long.parseLong(properties.getProperty(LENGTH, "-1"))));
+			} catch (IOException | NumberFormatException e) {
+				LOGGER.warn("could not read {}, download starts again", file, e);
+				return Optional.empty();
+			}
+		}
+
+		void write(File file) throws IOException {
+			Properties properties = new Properties();
+			properties.setProperty(URL, url);
+			etag.ifPresent(it -> properties.setProperty(ETAG, it));
+			properties.setProperty(LENGTH, String.valueOf(length));
+			try (OutputStream out = new FileOutputStream(file)) {
+				properties.store(out, "partial download");
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * files are extracted next to their final place and moved in when complete,
+ * so a broken extraction never looks like a complete one
+ */
+final class Staging {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Staging.class);
+
+	private Staging() {
+		// no instance
+	}
+
+	static File create(File baseDir, String kind) throws IOException {
+		File staging = new File(baseDir.getParentFile(), baseDir.getName() + "." + kind + "-" + UUID.randomUUID());
+		if (!staging.mkdirs()) {
+			throw new IOException("Could NOT create Directory " + staging);
+		}
+		return staging;
+	}
+
+	static File promote(File file, File staging, File baseDir) throws IOException {
+		File target = new File(baseDir, staging.toPath().relativize(file.toPath()).toString());
+		target.getParentFile().mkdirs();
+		Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return target;
+	}
+
+	static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		if (file.exists() && !file.delete()) {
+			LOGGER.warn("could not delete {}", file);
+		}
+	}
+}
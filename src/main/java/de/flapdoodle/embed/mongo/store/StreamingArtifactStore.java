@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import de.flapdoodle.embed.mongo.StartupTimings;
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.CommonsArchiveEntryAdapter;
+import de.flapdoodle.embed.process.extract.DirectoryAndExecutableNaming;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.extract.ExtractedFileSets;
+import de.flapdoodle.embed.process.extract.ExtractionMatch;
+import de.flapdoodle.embed.process.extract.FilesToExtract;
+import de.flapdoodle.embed.process.extract.ImmutableExtractedFileSet;
+import de.flapdoodle.embed.process.extract.TempNaming;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.io.progress.ProgressListener;
+import de.flapdoodle.embed.process.store.ExtractedArtifactStore;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Same layout as the {@link ExtractedArtifactStore}, but a missing tgz is
+ * not downloaded to a file and extracted in a second pass: the http body
+ * goes through gzip and tar in one go and only the entries of the
+ * {@link FileSet} are written.
+ * <p>
+ * With {@code teeToArtifactStore} the archive is written to the artifact
+ * store in the same pass (and verified with the {@link ChecksumSource}),
+ * without it the download stops after the last needed entry.
+ * Zip archives and archives already in the artifact store are handled by
+ * the {@code fallback} store.
+ */
+public class StreamingArtifactStore implements IArtifactStore {
+
+	private final DownloadConfig downloadConfig;
+	private final DirectoryAndExecutableNaming extraction;
+	private final DirectoryAndExecutableNaming temp;
+	private final boolean teeToArtifactStore;
+	private final ChecksumSource checksums;
+	private final IArtifactStore fallback;
+
+	public StreamingArtifactStore(DownloadConfig downloadConfig, DirectoryAndExecutableNaming extraction,
+			DirectoryAndExecutableNaming temp, boolean teeToArtifactStore, ChecksumSource checksums,
+			IArtifactStore fallback) {
+		this.downloadConfig = downloadConfig;
+		this.extraction = extraction;
+		this.temp = temp;
+		this.teeToArtifactStore = teeToArtifactStore;
+		this.checksums = checksums;
+		this.fallback = fallback;
+	}
+
+	@Override
+	public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+		DistributionPackage distributionPackage = downloadConfig.getPackageResolver().packageFor(distribution);
+		File baseDir = new File(extraction.getDirectory().asFile(), Downloads.asPath(distribution));
+		TempNaming naming = extraction.getExecutableNaming();
+
+		Optional<ExtractedFileSet> extracted = alreadyExtracted(baseDir, naming, distributionPackage.fileSet());
+		if (!extracted.isPresent()) {
+			if (distributionPackage.archiveType() != ArchiveType.TGZ || Downloads.artifactFile(downloadConfig, distribution).isFile()) {
+				return fallback.extractFileSet(distribution);
+			}
+			long start = System.nanoTime();
+			try {
+				extracted = Optional.of(stream(distribution, distributionPackage, baseDir, naming));
+			} finally {
+				// download and extraction overlap, all of it is network bound
+				StartupTimings.record(StartupTimings.Phase.DOWNLOAD, start, System.nanoTime());
+			}
+		}
+		return Optional.of(ExtractedFileSets.copy(extracted.get(), temp.getDirectory(), temp.getExecutableNaming()));
+	}
+
+	@Override
+	public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+		ExtractedFileSets.delete(files);
+	}
+
+	private ExtractedFileSet stream(Distribution distribution, DistributionPackage distributionPackage, File baseDir, TempNaming naming) throws IOException {
+		String progressLabel = "Download and extract " + distribution;
+		ProgressListener progress = downloadConfig.getProgressListener();
+		progress.start(progressLabel);
+
+		File staging = Staging.create(baseDir, "streaming");
+		File artifact = Downloads.artifactFile(downloadConfig, distribution);
+		File part = new File(artifact.getPath() + ".streaming-" + UUID.randomUUID());
+		if (teeToArtifactStore && !part.getParentFile().isDirectory() && !part.getParentFile().mkdirs()) {
+			Staging.delete(staging);
+			throw new IOException("Could NOT create Directory " + part.getParentFile());
+		}
+
+		URL url = new URL(Downloads.downloadUrl(downloadConfig, distribution));
+		try {
+			URLConnection connection = Downloads.open(downloadConfig, url);
+			FilesToExtract toExtract = new FilesToExtract(new FixedPath(staging.getAbsolutePath()), naming, distributionPackage.fileSet());
+			MessageDigest digest = Sha256.digest();
+			List<File> files = new ArrayList<>();
+			File executable = null;
+
+			try (OutputStream tee = teeToArtifactStore ? new FileOutputStream(part) : null;
+					InputStream body = new DigestInputStream(new Tee(connection.getInputStream(), tee,
+							new DownloadProgress(progress, progressLabel, connection.getContentLengthLong())), digest)) {
+				TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(new BufferedInputStream(body)));
+				TarArchiveEntry entry;
+				while (!toExtract.nothingLeft() && (entry = tar.getNextTarEntry()) != null) {
+					ExtractionMatch match = toExtract.find(new CommonsArchiveEntryAdapter(entry));
+					if (match != null) {
+						File file = match.write(tar, entry.getSize());
+						if (match.type() == FileType.Executable) {
+							executable = file;
+						} else {
+							files.add(file);
+						}
+					}
+				}
+				if (!toExtract.nothingLeft()) {
+					throw new IOException("not all files found in " + url + ": " + toExtract.files());
+				}
+				if (teeToArtifactStore) {
+					drain(body);
+				}
+			}
+
+			if (teeToArtifactStore) {
+				String sha256 = Sha256.hex(digest.digest());
+				Optional<String> expected = checksums.sha256(downloadConfig, distribution);
+				Checksums.verify(expected, sha256, part, url);
+				Files.move(part.toPath(), artifact.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				if (expected.isPresent()) {
+					Checksums.markVerified(artifact, sha256, artifact.length());
+				}
+			}
+
+			ImmutableExtractedFileSet.Builder fileSet = ExtractedFileSet.builder(baseDir)
+					.baseDirIsGenerated(false)
+					.executable(Staging.promote(executable, staging, baseDir));
+			for (File file : files) {
+				fileSet.addLibraryFiles(Staging.promote(file, staging, baseDir));
+			}
+			progress.done(progressLabel);
+			return fileSet.build();
+		} finally {
+			part.delete();
+			Staging.delete(staging);
+		}
+	}
+
+	private static Optional<ExtractedFileSet> alreadyExtracted(File baseDir, TempNaming naming, FileSet fileSet) {
+		ImmutableExtractedFileSet.Builder builder = ExtractedFileSet.builder(baseDir).baseDirIsGenerated(false);
+		for (FileSet.Entry entry : fileSet.entries()) {
+			if (entry.type() == FileType.Executable) {
+				File file = new File(baseDir, FilesToExtract.executableName(naming, entry));
+				if (!file.isFile()) {
+					return Optional.empty();
+				}
+				builder.executable(file);
+			} else {
+				File file = new File(baseDir, FilesToExtract.fileName(entry));
+				if (!file.isFile()) {
+					return Optional.empty();
+				}
+				builder.addLibraryFiles(file);
+			}
+		}
+		return Optional.of(builder.build());
+	}
+
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[Downloads.BUFFER_LENGTH];
+		while (in.read(buffer) != -1) {
+			// only written to the artifact store
+		}
+	}
+
+	private static final class Tee extends FilterInputStream {
+		private final OutputStream copy;
+		private final DownloadProgress progress;
+
+		Tee(InputStream in, OutputStream copy, DownloadProgress progress) {
+			super(in);
+			this.copy = copy;
+			this.progress = progress;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				if (copy != null) {
+					copy.write(b, off, read);
+				}
+				progress.add(read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			byte[] buffer = new byte[(int) Math.min(n, Downloads.BUFFER_LENGTH)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(0, read);
+		}
+	}
+}
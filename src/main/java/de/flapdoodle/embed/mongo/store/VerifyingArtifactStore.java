@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Checks an archive already in the artifact store against its sha256 the
+ * first time it is used. A corrupt archive is deleted (so the delegate
+ * downloads it again) instead of failing later in extraction or exec. Once
+ * verified, an archive is only checked again if its size changes.
+ */
+public class VerifyingArtifactStore implements IArtifactStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VerifyingArtifactStore.class);
+
+	private final IArtifactStore delegate;
+	private final DownloadConfig downloadConfig;
+	private final ChecksumSource checksums;
+
+	public VerifyingArtifactStore(IArtifactStore delegate, DownloadConfig downloadConfig, ChecksumSource checksums) {
+		this.delegate = delegate;
+		this.downloadConfig = downloadConfig;
+		this.checksums = checksums;
+	}
+
+	@Override
+	public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+		File artifact = Downloads.artifactFile(downloadConfig, distribution);
+		if (artifact.isFile() && !Checksums.isMarkedVerified(artifact)) {
+			verify(artifact, distribution);
+		}
+		return delegate.extractFileSet(distribution);
+	}
+
+	private void verify(File artifact, Distribution distribution) throws IOException {
+		Optional<String> expected = checksums.sha256(downloadConfig, distribution);
+		if (!expected.isPresent()) {
+			LOGGER.debug("no checksum for {}, not verified", artifact);
+			return;
+		}
+		String sha256 = Sha256.of(artifact);
+		if (expected.get().equals(sha256)) {
+			Checksums.markVerified(artifact, sha256, artifact.length());
+		} else {
+			LOGGER.warn("{} is corrupt (sha256 {}, expected {}), download again", artifact, sha256, expected.get());
+			Checksums.marker(artifact).delete();
+			if (!artifact.delete()) {
+				throw new IOException("could not delete corrupt " + artifact);
+			}
+		}
+	}
+
+	@Override
+	public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+		delegate.removeFileSet(distribution, files);
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+/**
+ * Starts a {@link PageCacheWarmUp} of the extracted files, which runs while
+ * the db dir and command line are prepared. Wrap the store which hands out
+ * the extracted files themselves, not one which copies them first.
+ */
+public class WarmingArtifactStore implements IArtifactStore {
+
+	private final IArtifactStore delegate;
+
+	public WarmingArtifactStore(IArtifactStore delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+		Optional<ExtractedFileSet> files = delegate.extractFileSet(distribution);
+		files.ifPresent(PageCacheWarmUp::start);
+		return files;
+	}
+
+	@Override
+	public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+		delegate.removeFileSet(distribution, files);
+	}
+}
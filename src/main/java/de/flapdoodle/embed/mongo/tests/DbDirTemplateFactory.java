@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoClient;
+import com.mongodb.ServerAddress;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.config.processlistener.CloneDbFilesFromTemplateBeforeProcessStart;
+import de.flapdoodle.embed.mongo.config.processlistener.DbDirTemplate;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+import de.flapdoodle.embed.process.io.directories.PropertyOrPlatformTempDir;
+import de.flapdoodle.embed.process.io.file.Files;
+
+/**
+ * Builds a seeded {@link DbDirTemplate} once, so that each test can start a
+ * mongod with a {@link CloneDbFilesFromTemplateBeforeProcessStart} listener.
+ */
+public class DbDirTemplateFactory {
+
+	private static final Logger logger = LoggerFactory.getLogger(DbDirTemplateFactory.class);
+
+	private DbDirTemplateFactory() {
+		// no instance
+	}
+
+	public static DbDirTemplate seed(final IFeatureAwareVersion version, final Consumer<MongoClient> seeder)
+			throws IOException {
+		return seed(version, Files.createTempDir(PropertyOrPlatformTempDir.defaultInstance(), "embedmongo-template"), seeder);
+	}
+
+	/**
+	 * starts a mongod on the given directory, runs the seeder against it and
+	 * stops it again, so the directory contains a consistent set of db files
+	 */
+	public static DbDirTemplate seed(final IFeatureAwareVersion version, final File directory,
+			final Consumer<MongoClient> seeder) throws IOException {
+		MongodStarter starter = MongodStarter.getInstance(Defaults.runtimeConfigFor(Command.MongoD, logger).build());
+		MongodExecutable executable = starter.prepare(MongodConfig.builder()
+				.version(version)
+				.replication(new Storage(directory.getAbsolutePath(), null, 0))
+				.build());
+		try {
+			MongodProcess process = executable.start();
+			try (MongoClient mongo = new MongoClient(new ServerAddress(process.getConfig().net().getServerAddress(),
+					process.getConfig().net().getPort()))) {
+				seeder.accept(mongo);
+			} finally {
+				process.stop();
+			}
+		} finally {
+			executable.stop();
+		}
+		return DbDirTemplate.of(directory);
+	}
+}
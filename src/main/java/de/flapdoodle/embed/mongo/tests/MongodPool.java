@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoClient;
+import com.mongodb.ServerAddress;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.processlistener.NoopProcessListener;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import de.flapdoodle.embed.process.runtime.ProcessControl;
+
+/**
+ * Keeps started mongod instances warm, so that tests can lease a running
+ * instance instead of paying the mongod startup for each test class.
+ *
+ * Instances are grouped by the shape of their {@link MongodConfig} (everything
+ * but the network settings). A returned instance is reset by dropping all
+ * non-system databases and handed out again.
+ */
+public class MongodPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MongodPool.class);
+
+	private static final Set<String> SYSTEM_DATABASES = new HashSet<>(Arrays.asList("admin", "local", "config"));
+
+	private final MongodPoolConfig config;
+	private final MongodStarter starter;
+	private final Map<ShapeKey, Shape> shapes = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService executor;
+
+	private volatile boolean shutdown;
+
+	public static MongodPool with(MongodPoolConfig config) {
+		return new MongodPool(config);
+	}
+
+	public static MongodPool withDefaults() {
+		return new MongodPool(MongodPoolConfig.defaults());
+	}
+
+	public MongodPool(MongodPoolConfig config) {
+		this.config = config;
+		this.starter = MongodStarter.getInstance(config.runtimeConfig());
+		this.executor = Executors.newScheduledThreadPool(config.poolSize(), new DaemonThreadFactory());
+
+		long sweepInterval = Math.max(100, Math.min(config.idleTimeoutInMillis(), config.maxLeaseTimeInMillis()) / 2);
+		this.executor.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+
+		ProcessControl.addShutdownHook(this::shutdown);
+	}
+
+	/**
+	 * Leases a running instance of the latest production version of MongoDB.
+	 */
+	public Lease lease() throws IOException {
+		return lease(Version.Main.PRODUCTION);
+	}
+
+	/**
+	 * Leases a running instance of the specified version of MongoDB.
+	 */
+	public Lease lease(IFeatureAwareVersion version) throws IOException {
+		return lease(MongodConfig.builder().version(version).build());
+	}
+
+	/**
+	 * Leases a running instance with the shape of the given config. The network
+	 * settings of the config are ignored, each instance gets its own free port.
+	 */
+	public Lease lease(MongodConfig template) throws IOException {
+		checkNotShutdown();
+
+		Shape shape = shapeOf(template);
+		Instance instance = shape.idle.pollFirst();
+		if (instance == null) {
+			LOGGER.debug("no warm instance for {}, starting one", template.version());
+			instance = startInstance(shape);
+		}
+		refill(shape);
+
+		Lease lease = new Lease(this, shape, instance);
+		shape.leased.add(lease);
+		return lease;
+	}
+
+	/**
+	 * Starts the instances for the shape of the given config in the background.
+	 */
+	public void warmUp(MongodConfig template) {
+		checkNotShutdown();
+		refill(shapeOf(template));
+	}
+
+	/**
+	 * Stops all pooled and leased instances.
+	 */
+	public void shutdown() {
+		synchronized (this) {
+			if (shutdown) {
+				return;
+			}
+			shutdown = true;
+		}
+		executor.shutdownNow();
+		for (Shape shape : shapes.values()) {
+			Instance instance;
+			while ((instance = shape.idle.pollFirst()) != null) {
+				instance.stop();
+			}
+			for (Lease lease : new ArrayList<>(shape.leased)) {
+				if (lease.expire()) {
+					lease.instance.stop();
+				}
+			}
+		}
+		shapes.clear();
+	}
+
+	private Shape shapeOf(MongodConfig template) {
+		if (template.replication().getDatabaseDir() != null) {
+			throw new IllegalArgumentException("pooled instances can not share a database dir: "
+					+ template.replication().getDatabaseDir());
+		}
+		return shapes.computeIfAbsent(new ShapeKey(template), key -> new Shape(template));
+	}
+
+	private void refill(Shape shape) {
+		while (!shutdown && shape.idle.size() + shape.starting.get() < config.poolSize()) {
+			shape.starting.incrementAndGet();
+			try {
+				executor.execute(() -> {
+					try {
+						Instance instance = startInstance(shape);
+						if (shutdown) {
+							instance.stop();
+						} else {
+							shape.idle.offerLast(instance);
+						}
+					} catch (IOException | RuntimeException ex) {
+						LOGGER.warn("could not start pooled instance for {}", shape.template.version(), ex);
+					} finally {
+						shape.starting.decrementAndGet();
+					}
+				});
+			} catch (RuntimeException rx) {
+				shape.starting.decrementAndGet();
+				throw rx;
+			}
+		}
+	}
+
+	private Instance startInstance(Shape shape) throws IOException {
+		MongodConfig instanceConfig = MongodConfig.builder()
+				.from(shape.template)
+				.net(new Net(shape.template.net().getBindIp(), Network.getFreeServerPort(), shape.template.net().isIpv6()))
+				.build();
+		MongodExecutable executable = starter.prepare(instanceConfig);
+		try {
+			return new Instance(executable, executable.start());
+		} catch (IOException | RuntimeException ex) {
+			executable.stop();
+			throw ex;
+		}
+	}
+
+	private void giveBack(Lease lease) {
+		Shape shape = lease.shape;
+		Instance instance = lease.instance;
+		shape.leased.remove(lease);
+
+		if (shutdown) {
+			instance.stop();
+			return;
+		}
+
+		if (!reset(instance)) {
+			instance.stop();
+			refill(shape);
+			return;
+		}
+
+		instance.idleSince = System.nanoTime();
+		shape.idle.offerFirst(instance);
+		while (shape.idle.size() > config.poolSize()) {
+			Instance surplus = shape.idle.pollLast();
+			if (surplus != null) {
+				surplus.stop();
+			}
+		}
+	}
+
+	private static boolean reset(Instance instance) {
+		try (MongoClient client = instance.newMongo()) {
+			for (String name : client.listDatabaseNames()) {
+				if (!SYSTEM_DATABASES.contains(name)) {
+					client.getDatabase(name).drop();
+				}
+			}
+			return true;
+		} catch (RuntimeException | UnknownHostException ex) {
+			LOGGER.warn("could not reset pooled instance, it will be discarded", ex);
+			return false;
+		}
+	}
+
+	private void sweep() {
+		long now = System.nanoTime();
+		long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutInMillis());
+		long maxLeaseTime = TimeUnit.MILLISECONDS.toNanos(config.maxLeaseTimeInMillis());
+
+		try {
+			for (Shape shape : shapes.values()) {
+				for (Instance instance : shape.idle) {
+					if (now - instance.idleSince > idleTimeout && shape.idle.remove(instance)) {
+						LOGGER.debug("evict idle instance {}", instance);
+						instance.stop();
+					}
+				}
+				for (Lease lease : new ArrayList<>(shape.leased)) {
+					if (now - lease.leasedAt > maxLeaseTime && lease.expire()) {
+						LOGGER.warn("lease of {} exceeded {}ms, instance will be stopped", lease.instance,
+								config.maxLeaseTimeInMillis());
+						shape.leased.remove(lease);
+						lease.instance.stop();
+					}
+				}
+			}
+		} catch (RuntimeException rx) {
+			LOGGER.warn("sweep failed", rx);
+		}
+	}
+
+	private void checkNotShutdown() {
+		if (shutdown) {
+			throw new IllegalStateException("pool is shut down");
+		}
+	}
+
+	/**
+	 * A running instance handed out by the pool. Closing the lease returns the
+	 * instance to the pool.
+	 */
+	public static final class Lease implements AutoCloseable {
+
+		private final MongodPool pool;
+		private final Shape shape;
+		private final Instance instance;
+		private final long leasedAt = System.nanoTime();
+		private boolean done;
+
+		private Lease(MongodPool pool, Shape shape, Instance instance) {
+			this.pool = pool;
+			this.shape = shape;
+			this.instance = instance;
+		}
+
+		public MongodProcess getMongodProcess() {
+			return instance.process;
+		}
+
+		public MongodConfig getConfig() {
+			return instance.process.getConfig();
+		}
+
+		/**
+		 * Creates a new Mongo connection.
+		 */
+		public MongoClient newMongo() throws UnknownHostException {
+			return instance.newMongo();
+		}
+
+		/**
+		 * Gives the instance back to the pool.
+		 */
+		@Override
+		public void close() {
+			if (expire()) {
+				pool.giveBack(this);
+			}
+		}
+
+		private synchronized boolean expire() {
+			if (done) {
+				return false;
+			}
+			done = true;
+			return true;
+		}
+	}
+
+	private static final class Instance {
+
+		private final MongodExecutable executable;
+		private final MongodProcess process;
+		private volatile long idleSince = System.nanoTime();
+
+		private Instance(MongodExecutable executable, MongodProcess process) {
+			this.executable = executable;
+			this.process = process;
+		}
+
+		private MongoClient newMongo() throws UnknownHostException {
+			return new MongoClient(new ServerAddress(process.getConfig().net().getServerAddress(),
+					process.getConfig().net().getPort()));
+		}
+
+		private void stop() {
+			try {
+				process.stop();
+			} finally {
+				executable.stop();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Instance{port=" + process.getConfig().net().getPort() + "}";
+		}
+	}
+
+	private static final class Shape {
+
+		private final MongodConfig template;
+		private final ConcurrentLinkedDeque<Instance> idle = new ConcurrentLinkedDeque<>();
+		private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+		private final AtomicInteger starting = new AtomicInteger();
+
+		private Shape(MongodConfig template) {
+			this.template = template;
+		}
+	}
+
+	/**
+	 * everything of a {@link MongodConfig} which makes a difference for a running
+	 * instance, net settings excluded
+	 */
+	private static final class ShapeKey {
+
+		private final List<Object> parts;
+
+		private ShapeKey(MongodConfig config) {
+			this.parts = Arrays.asList(
+					config.version().asInDownloadPath(),
+					config.version().getFeatures(),
+					config.cmdOptions(),
+					config.params(),
+					config.args(),
+					config.isConfigServer(),
+					config.isShardServer(),
+					config.replication().getReplSetName(),
+					config.replication().getOplogSize(),
+					config.replication().getRamDisk() != null ? config.replication().getRamDisk().getLocation() : "",
+					config.replication().getRamDisk() != null ? config.replication().getRamDisk().getBudgetInBytes() : 0L,
+					config.net().isIpv6(),
+					config.timeout().getStartupTimeout(),
+					config.processListener() instanceof NoopProcessListener
+							? NoopProcessListener.class
+							: config.processListener());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ShapeKey && parts.equals(((ShapeKey) obj).parts);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(parts);
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "mongod-pool-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import org.immutables.value.Value.Check;
+import org.immutables.value.Value.Default;
+import org.immutables.value.Value.Immutable;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.process.config.RuntimeConfig;
+
+/**
+ * Settings for a {@link MongodPool}.
+ */
+@Immutable
+public interface MongodPoolConfig {
+
+	/**
+	 * number of started instances kept warm for each config shape
+	 */
+	@Default
+	default int poolSize() {
+		return 2;
+	}
+
+	/**
+	 * idle instances are stopped after this time
+	 */
+	@Default
+	default long idleTimeoutInMillis() {
+		return 5 * 60 * 1000L;
+	}
+
+	/**
+	 * leased instances are taken away (and stopped) after this time
+	 */
+	@Default
+	default long maxLeaseTimeInMillis() {
+		return 10 * 60 * 1000L;
+	}
+
+	@Default
+	default RuntimeConfig runtimeConfig() {
+		return Defaults.runtimeConfigFor(Command.MongoD, LoggerFactory.getLogger(MongodPool.class)).build();
+	}
+
+	@Check
+	default void check() {
+		if (poolSize() < 1) {
+			throw new IllegalArgumentException("poolSize must be at least 1: " + poolSize());
+		}
+		if (idleTimeoutInMillis() <= 0 || maxLeaseTimeInMillis() <= 0) {
+			throw new IllegalArgumentException("timeouts must be positive");
+		}
+	}
+
+	static ImmutableMongodPoolConfig.Builder builder() {
+		return ImmutableMongodPoolConfig.builder();
+	}
+
+	static MongodPoolConfig defaults() {
+		return builder().build();
+	}
+}
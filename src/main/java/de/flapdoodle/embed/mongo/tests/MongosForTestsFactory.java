@@ -34,10 +34,10 @@ import com.mongodb.MongoException;
 import com.mongodb.ServerAddress;
 
 import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.MongoProcessGroup;
 import de.flapdoodle.embed.mongo.MongosExecutable;
 import de.flapdoodle.embed.mongo.MongosProcess;
 import de.flapdoodle.embed.mongo.MongosStarter;
-import de.flapdoodle.embed.mongo.config.Defaults;
 import de.flapdoodle.embed.mongo.config.MongosConfig;
 import de.flapdoodle.embed.mongo.config.Net;
 import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
@@ -66,6 +66,8 @@ public class MongosForTestsFactory {
 
 	private final MongosProcess mongosProcess;
 
+	private final MongoProcessGroup processGroup = new MongoProcessGroup();
+
 	/**
 	 * Create the testing utility using the latest production version of
 	 * MongoDB.
@@ -83,8 +85,7 @@ public class MongosForTestsFactory {
 	 *            version of MongoDB.
 	 */
 	public MongosForTestsFactory(final IFeatureAwareVersion version) throws IOException {
-		final MongosStarter mongoConfigRuntime = MongosStarter.getInstance(Defaults.runtimeConfigFor(Command.MongoS, LOGGER)
-			.build());
+		final MongosStarter mongoConfigRuntime = MongosStarter.getInstance(MongoProcessGroup.runtimeConfigFor(Command.MongoS, LOGGER));
 
 		int configServerPort = 27019;
 		int mongosPort = 27017;
@@ -96,9 +97,9 @@ public class MongosForTestsFactory {
 		
 		mongoConfigExecutable = mongoConfigRuntime.prepare(config);
 		mongoConfigProcess = mongoConfigExecutable.start();
+		processGroup.add(mongoConfigProcess);
 
-		final MongosStarter runtime = MongosStarter.getInstance(Defaults.runtimeConfigFor(Command.MongoS, LOGGER)
-			.build());
+		final MongosStarter runtime = MongosStarter.getInstance(MongoProcessGroup.runtimeConfigFor(Command.MongoS, LOGGER));
 		
 		config = MongosConfig.builder()
 			.version(version)
@@ -108,6 +109,7 @@ public class MongosForTestsFactory {
 		
 		mongosExecutable = runtime.prepare(config);
 		mongosProcess = mongosExecutable.start();
+		processGroup.add(mongosProcess);
 	}
 
 	/**
@@ -132,8 +134,7 @@ public class MongosForTestsFactory {
 	 * Cleans up the resources created by the utility.
 	 */
 	public void shutdown() {
-		mongosProcess.stop();
+		processGroup.stop();
 		mongosExecutable.stop();
-		mongoConfigProcess.stop();
 	}
 }
@@ -22,9 +22,11 @@ package de.flapdoodle.embed.mongo.tests;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,13 +44,13 @@ import com.mongodb.MongoException;
 import com.mongodb.ServerAddress;
 
 import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.MongoProcessGroup;
 import de.flapdoodle.embed.mongo.MongodExecutable;
 import de.flapdoodle.embed.mongo.MongodProcess;
 import de.flapdoodle.embed.mongo.MongodStarter;
 import de.flapdoodle.embed.mongo.MongosExecutable;
 import de.flapdoodle.embed.mongo.MongosProcess;
 import de.flapdoodle.embed.mongo.MongosStarter;
-import de.flapdoodle.embed.mongo.config.Defaults;
 import de.flapdoodle.embed.mongo.config.MongodConfig;
 import de.flapdoodle.embed.mongo.config.MongosConfig;
 
@@ -62,6 +64,8 @@ public class MongosSystemForTestFactory {
 	public static final String REPLICA_SET_NAME = "rep1";
 	public static final String OPLOG_COLLECTION = "oplog.rs";
 
+	private static final long REPLICA_SET_TIMEOUT_IN_MILLIS = 60 * 1000L;
+
 	private final MongosConfig config;
 	private final Map<String, List<MongodConfig>> replicaSets;
 	private final List<MongodConfig> configServers;
@@ -73,6 +77,7 @@ public class MongosSystemForTestFactory {
 	private MongosProcess mongosProcess;
 	private List<MongodProcess> mongodProcessList;
 	private List<MongodProcess> mongodConfigProcessList;
+	private MongoProcessGroup processGroup;
 
 	public MongosSystemForTestFactory(MongosConfig config,
 			Map<String, List<MongodConfig>> replicaSets,
@@ -87,85 +92,125 @@ public class MongosSystemForTestFactory {
 	}
 
 	public void start() throws Throwable {
-		this.mongodProcessList = new ArrayList<>();
-		this.mongodConfigProcessList = new ArrayList<>();
+		this.mongodProcessList = Collections.synchronizedList(new ArrayList<>());
+		this.mongodConfigProcessList = Collections.synchronizedList(new ArrayList<>());
+		this.processGroup = new MongoProcessGroup();
 		for (Entry<String, List<MongodConfig>> entry : replicaSets.entrySet()) {
-			initializeReplicaSet(entry);
+			checkReplicaSet(entry.getKey(), entry.getValue());
 		}
 		for (MongodConfig config : configServers) {
-			initializeConfigServer(config);
+			checkConfigServer(config);
 		}
-		initializeMongos();
-		configureMongos();
-	}
 
-	private void initializeReplicaSet(Entry<String, List<MongodConfig>> entry)
-			throws Exception {
-		String replicaName = entry.getKey();
-		List<MongodConfig> mongoConfigList = entry.getValue();
+		// prepare one after the other, so the distribution is downloaded and extracted only once,
+		// then every mongod is started at once, so boot time is bound by the slowest member
+		MongodStarter starter = MongodStarter.getInstance(MongoProcessGroup.runtimeConfigFor(Command.MongoD, logger));
+		List<Callable<MongodProcess>> startMongods = new ArrayList<>();
+		for (List<MongodConfig> members : replicaSets.values()) {
+			for (MongodConfig member : members) {
+				MongodExecutable executable = starter.prepare(member);
+				startMongods.add(() -> startMongod(executable, mongodProcessList));
+			}
+		}
+		for (MongodConfig config : configServers) {
+			MongodExecutable executable = starter.prepare(config);
+			startMongods.add(() -> startMongod(executable, mongodConfigProcessList));
+		}
+		mongosExecutable = MongosStarter.getInstance(MongoProcessGroup.runtimeConfigFor(Command.MongoS, logger))
+				.prepare(config);
+
+		// mongos only needs the config servers, so it can start while the replica sets elect a primary
+		List<Callable<Void>> initialize = new ArrayList<>();
+		for (Entry<String, List<MongodConfig>> entry : replicaSets.entrySet()) {
+			initialize.add(() -> {
+				initializeReplicaSet(entry.getKey(), entry.getValue());
+				return null;
+			});
+		}
+		initialize.add(() -> {
+			initializeMongos();
+			return null;
+		});
 
+		try {
+			Polling.inParallel("mongod-start", startMongods);
+			Polling.inParallel("mongos-system-init", initialize);
+			configureMongos();
+		} catch (Exception e) {
+			stop();
+			throw e;
+		}
+	}
+
+	private void checkReplicaSet(String replicaName, List<MongodConfig> mongoConfigList) throws Exception {
 		if (mongoConfigList.size() < 3) {
 			throw new Exception(
 					"A replica set must contain at least 3 members.");
 		}
-		// Create 3 mongod processes
 		for (MongodConfig mongoConfig : mongoConfigList) {
 			if (!mongoConfig.replication().getReplSetName().equals(replicaName)) {
 				throw new Exception(
 						"Replica set name must match in mongo configuration");
 			}
-			MongodStarter starter = MongodStarter.getDefaultInstance();
-			MongodExecutable mongodExe = starter.prepare(mongoConfig);
-			MongodProcess process = mongodExe.start();
-			mongodProcessList.add(process);
 		}
-		Thread.sleep(1000);
+	}
+
+	private void checkConfigServer(MongodConfig config) throws Exception {
+		if (!config.isConfigServer()) {
+			throw new Exception(
+					"Mongo configuration is not a defined for a config server.");
+		}
+	}
+
+	private MongodProcess startMongod(MongodExecutable executable, List<MongodProcess> processList) throws Exception {
+		MongodProcess process = executable.start();
+		processList.add(process);
+		processGroup.add(process);
+		return process;
+	}
+
+	private void initializeReplicaSet(String replicaName, List<MongodConfig> mongoConfigList)
+			throws Exception {
 		MongoClientOptions mo = MongoClientOptions.builder()
 				.connectTimeout(10)
 				.build();
-		MongoClient mongo = new MongoClient(new ServerAddress(mongoConfigList.get(0).net()
+		try (MongoClient mongo = new MongoClient(new ServerAddress(mongoConfigList.get(0).net()
 				.getServerAddress().getHostName(), mongoConfigList.get(0).net()
-				.getPort()), mo);
-		DB mongoAdminDB = mongo.getDB(ADMIN_DATABASE_NAME);
-
-		CommandResult cr = mongoAdminDB
-				.command(new BasicDBObject("isMaster", 1));
-		logger.info("isMaster: {}", cr);
+				.getPort()), mo)) {
+			DB mongoAdminDB = mongo.getDB(ADMIN_DATABASE_NAME);
 
-		// Build BSON object replica set settings
-		DBObject replicaSetSetting = new BasicDBObject();
-		replicaSetSetting.put("_id", replicaName);
-		BasicDBList members = new BasicDBList();
-		int i = 0;
-		for (MongodConfig mongoConfig : mongoConfigList) {
-			DBObject host = new BasicDBObject();
-			host.put("_id", i++);
-			host.put("host", mongoConfig.net().getServerAddress().getHostName()
-					+ ":" + mongoConfig.net().getPort());
-			members.add(host);
-		}
+			CommandResult cr = mongoAdminDB
+					.command(new BasicDBObject("isMaster", 1));
+			logger.info("isMaster: {}", cr);
 
-		replicaSetSetting.put("members", members);
-		logger.info(replicaSetSetting.toString());
-		// Initialize replica set
-		cr = mongoAdminDB.command(new BasicDBObject("replSetInitiate",
-				replicaSetSetting));
-		logger.info("replSetInitiate: {}", cr);
+			// Build BSON object replica set settings
+			DBObject replicaSetSetting = new BasicDBObject();
+			replicaSetSetting.put("_id", replicaName);
+			BasicDBList members = new BasicDBList();
+			int i = 0;
+			for (MongodConfig mongoConfig : mongoConfigList) {
+				DBObject host = new BasicDBObject();
+				host.put("_id", i++);
+				host.put("host", mongoConfig.net().getServerAddress().getHostName()
+						+ ":" + mongoConfig.net().getPort());
+				members.add(host);
+			}
 
-		Thread.sleep(5000);
-		cr = mongoAdminDB.command(new BasicDBObject("replSetGetStatus", 1));
-		logger.info("replSetGetStatus: {}", cr);
+			replicaSetSetting.put("members", members);
+			logger.info(replicaSetSetting.toString());
+			// Initialize replica set
+			cr = mongoAdminDB.command(new BasicDBObject("replSetInitiate",
+					replicaSetSetting));
+			logger.info("replSetInitiate: {}", cr);
 
-		// Check replica set status before to proceed
-		while (!isReplicaSetStarted(cr)) {
-			logger.info("Waiting for 3 seconds...");
-			Thread.sleep(1000);
-			cr = mongoAdminDB.command(new BasicDBObject("replSetGetStatus", 1));
+			// Check replica set status before to proceed
+			cr = Polling.until("replica set " + replicaName, REPLICA_SET_TIMEOUT_IN_MILLIS, () -> {
+				CommandResult status = mongoAdminDB.command(new BasicDBObject("replSetGetStatus", 1));
+				logger.debug("replSetGetStatus: {}", status);
+				return isReplicaSetStarted(status) ? status : null;
+			});
 			logger.info("replSetGetStatus: {}", cr);
 		}
-
-		mongo.close();
-		mongo = null;
 	}
 
 	private boolean isReplicaSetStarted(BasicDBObject setting) {
@@ -187,23 +232,9 @@ public class MongosSystemForTestFactory {
 		return true;
 	}
 
-	private void initializeConfigServer(MongodConfig config) throws Exception {
-		if (!config.isConfigServer()) {
-			throw new Exception(
-					"Mongo configuration is not a defined for a config server.");
-		}
-		MongodStarter starter = MongodStarter.getDefaultInstance();
-		MongodExecutable mongodExe = starter.prepare(config);
-		MongodProcess process = mongodExe.start();
-		mongodProcessList.add(process);
-	}
-
 	private void initializeMongos() throws Exception {
-		MongosStarter runtime = MongosStarter.getInstance(Defaults.runtimeConfigFor(Command.MongoS, logger)
-			.build());
-		
-		mongosExecutable = runtime.prepare(config);
 		mongosProcess = mongosExecutable.start();
+		processGroup.add(mongosProcess);
 	}
 
 	private void configureMongos() throws Exception {
@@ -216,7 +247,8 @@ public class MongosSystemForTestFactory {
 						.getHostName(), this.config.net().getPort()), options)) {
 			DB mongoAdminDB = mongo.getDB(ADMIN_DATABASE_NAME);
 	
-			// Add shard from the replica set list
+			// Add shard from the replica set list, all at once
+			List<Callable<Void>> addShards = new ArrayList<>();
 			for (Entry<String, List<MongodConfig>> entry : this.replicaSets
 					.entrySet()) {
 				String replicaName = entry.getKey();
@@ -229,11 +261,15 @@ public class MongosSystemForTestFactory {
 					}
 					command.append(mongodConfig.net().getServerAddress().getHostName()).append(":").append(mongodConfig.net().getPort());
 				}
-				logger.info("Execute add shard command: {}", command.toString());
-				cr = mongoAdminDB.command(new BasicDBObject("addShard", command.toString()));
-				logger.info(cr.toString());
+				String shard = command.toString();
+				addShards.add(() -> {
+					logger.info("Execute add shard command: {}", shard);
+					logger.info(mongoAdminDB.command(new BasicDBObject("addShard", shard)).toString());
+					return null;
+				});
 			}
-	
+			Polling.inParallel("add-shard", addShards);
+
 			logger.info("Execute list shards.");
 			cr = mongoAdminDB.command(new BasicDBObject("listShards", 1));
 			logger.info(cr.toString());
@@ -272,13 +308,12 @@ public class MongosSystemForTestFactory {
 				.getServerAddress(), mongosProcess.getConfig().net().getPort()));
 	}
 
+	/**
+	 * stops mongos, shards and config servers in this order, each tier concurrently
+	 */
 	public void stop() {
-		for (MongodProcess process : this.mongodProcessList) {
-			process.stop();
-		}
-		for (MongodProcess process : this.mongodConfigProcessList) {
-			process.stop();
+		if (this.processGroup != null) {
+			this.processGroup.stop();
 		}
-		this.mongosProcess.stop();
 	}
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helpers to start things in parallel and to wait for a condition without
+ * fixed sleeps.
+ */
+final class Polling {
+
+	private static final long INITIAL_DELAY_IN_MILLIS = 10;
+	private static final long MAX_DELAY_IN_MILLIS = 250;
+
+	private Polling() {
+		// no instance
+	}
+
+	/**
+	 * Calls check until it returns something other than null. The delay
+	 * between two calls starts small and doubles up to 250ms.
+	 *
+	 * @throws TimeoutException if there was no result within the timeout
+	 */
+	static <T> T until(String description, long timeoutInMillis, Callable<T> check) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+		long delay = INITIAL_DELAY_IN_MILLIS;
+		while (true) {
+			T result = check.call();
+			if (result != null) {
+				return result;
+			}
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remaining <= 0) {
+				throw new TimeoutException("gave up waiting for " + description + " after " + timeoutInMillis + "ms");
+			}
+			Thread.sleep(Math.min(delay, remaining));
+			delay = Math.min(delay * 2, MAX_DELAY_IN_MILLIS);
+		}
+	}
+
+	/**
+	 * Runs all tasks at once and waits for all of them.
+	 *
+	 * @return results in the order of the tasks
+	 * @throws Exception the first failure, after all tasks are done
+	 */
+	static <T> List<T> inParallel(String threadPrefix, List<? extends Callable<T>> tasks) throws Exception {
+		if (tasks.isEmpty()) {
+			return new ArrayList<>();
+		}
+		AtomicInteger counter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), runnable -> {
+			Thread thread = new Thread(runnable, threadPrefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (Callable<T> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+			List<T> results = new ArrayList<>();
+			Exception failure = null;
+			for (Future<T> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					results.add(null);
+					if (failure == null) {
+						failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoDatabase;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.config.MongoCmdOptions;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+/**
+ * This class encapsulates everything that would be needed to do embedded
+ * MongoDB testing against a replica set, e.g. for transactions or change
+ * streams. A single member is enough for transactions.
+ */
+public class ReplicaSetForTestsFactory {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaSetForTestsFactory.class);
+
+	public static final String REPLICA_SET_NAME = "rs0";
+
+	private static final long ELECTION_TIMEOUT_IN_MILLIS = 500;
+	private static final long PRIMARY_TIMEOUT_IN_MILLIS = 60 * 1000L;
+
+	private static final int PRIMARY = 1;
+	private static final int SECONDARY = 2;
+
+	public static ReplicaSetForTestsFactory with(final IFeatureAwareVersion version) throws IOException {
+		return new ReplicaSetForTestsFactory(version, 1);
+	}
+
+	public static ReplicaSetForTestsFactory with(final IFeatureAwareVersion version, int members) throws IOException {
+		return new ReplicaSetForTestsFactory(version, members);
+	}
+
+	private final List<MongodExecutable> mongodExecutables = new ArrayList<>();
+	private final List<MongodProcess> mongodProcesses = Collections.synchronizedList(new ArrayList<>());
+
+	/**
+	 * Create a single member replica set using the latest production version
+	 * of MongoDB.
+	 */
+	public ReplicaSetForTestsFactory() throws IOException {
+		this(Version.Main.PRODUCTION, 1);
+	}
+
+	/**
+	 * Create a replica set using the specified version of MongoDB.
+	 *
+	 * @param version
+	 *            version of MongoDB.
+	 * @param members
+	 *            number of replica set members
+	 */
+	public ReplicaSetForTestsFactory(final IFeatureAwareVersion version, final int members) throws IOException {
+		if (members < 1) {
+			throw new IllegalArgumentException("a replica set needs at least one member: " + members);
+		}
+		final MongodStarter runtime = MongodStarter.getInstance(Defaults.runtimeConfigFor(Command.MongoD, logger)
+			.build());
+
+		// prepare one after the other, so the distribution is extracted only once
+		List<Callable<MongodProcess>> starts = new ArrayList<>();
+		for (int i = 0; i < members; i++) {
+			MongodExecutable executable = runtime.prepare(newMongodConfig(version, REPLICA_SET_NAME));
+			mongodExecutables.add(executable);
+			starts.add(() -> {
+				MongodProcess process = executable.start();
+				mongodProcesses.add(process);
+				return process;
+			});
+		}
+
+		try {
+			List<MongodProcess> started = Polling.inParallel("replica-set-start", starts);
+			mongodProcesses.clear();
+			mongodProcesses.addAll(started);
+			initiate();
+		} catch (IOException | RuntimeException e) {
+			shutdown();
+			throw e;
+		} catch (Exception e) {
+			shutdown();
+			throw new IOException("could not start replica set", e);
+		}
+	}
+
+	protected MongodConfig newMongodConfig(final IFeatureAwareVersion version, final String replicaSetName)
+			throws IOException {
+		return MongodConfig.builder()
+			.version(version)
+			.net(new Net(Network.getFreeServerPort(), Network.localhostIsIPv6()))
+			.replication(new Storage(null, replicaSetName, 0))
+			// replica set members need a journal
+			.cmdOptions(MongoCmdOptions.builder()
+				.useNoJournal(false)
+				.build())
+			.build();
+	}
+
+	private void initiate() throws Exception {
+		List<Document> members = new ArrayList<>();
+		for (int i = 0; i < mongodProcesses.size(); i++) {
+			members.add(new Document("_id", i)
+				.append("host", hostAndPort(mongodProcesses.get(i))));
+		}
+		Document config = new Document("_id", REPLICA_SET_NAME)
+			.append("members", members)
+			.append("settings", new Document("electionTimeoutMillis", ELECTION_TIMEOUT_IN_MILLIS));
+
+		try (MongoClient mongo = newDirectClient(mongodProcesses.get(0))) {
+			MongoDatabase admin = mongo.getDatabase("admin");
+			logger.info("replSetInitiate: {}", admin.runCommand(new Document("replSetInitiate", config)));
+
+			Document status = Polling.until("replica set " + REPLICA_SET_NAME, PRIMARY_TIMEOUT_IN_MILLIS, () -> {
+				try {
+					Document current = admin.runCommand(new Document("replSetGetStatus", 1));
+					return isReady(current) ? current : null;
+				} catch (MongoException mx) {
+					// not initialized yet
+					return null;
+				}
+			});
+			logger.info("replSetGetStatus: {}", status);
+		}
+	}
+
+	private static boolean isReady(Document status) {
+		List<?> members = status.get("members", List.class);
+		if (members == null) {
+			return false;
+		}
+		int primaries = 0;
+		for (Object member : members) {
+			int state = ((Number) ((Document) member).get("state")).intValue();
+			if (state == PRIMARY) {
+				primaries++;
+			} else if (state != SECONDARY) {
+				return false;
+			}
+		}
+		return primaries == 1;
+	}
+
+	private static String hostAndPort(MongodProcess process) throws UnknownHostException {
+		return process.getConfig().net().getServerAddress().getHostName() + ":" + process.getConfig().net().getPort();
+	}
+
+	private static MongoClient newDirectClient(MongodProcess process) throws UnknownHostException {
+		return new MongoClient(new ServerAddress(process.getConfig().net().getServerAddress(),
+				process.getConfig().net().getPort()));
+	}
+
+	/**
+	 * @return connection string with all members and the replica set name
+	 */
+	public String getConnectionString() throws UnknownHostException {
+		List<String> hosts = new ArrayList<>();
+		for (MongodProcess process : mongodProcesses) {
+			hosts.add(hostAndPort(process));
+		}
+		return "mongodb://" + String.join(",", hosts) + "/?replicaSet=" + REPLICA_SET_NAME;
+	}
+
+	/**
+	 * Creates a new Mongo connection to the replica set.
+	 */
+	public MongoClient newMongo() throws UnknownHostException {
+		List<ServerAddress> seeds = new ArrayList<>();
+		for (MongodProcess process : mongodProcesses) {
+			seeds.add(new ServerAddress(process.getConfig().net().getServerAddress(), process.getConfig().net().getPort()));
+		}
+		return new MongoClient(seeds);
+	}
+
+	/**
+	 * Creates a new DB with unique name for connection.
+	 */
+	public MongoDatabase newDatabase(MongoClient mongo) {
+		return mongo.getDatabase(UUID.randomUUID().toString());
+	}
+
+	public List<MongodProcess> getMongodProcesses() {
+		return Collections.unmodifiableList(new ArrayList<>(mongodProcesses));
+	}
+
+	/**
+	 * Cleans up the resources created by the utility.
+	 */
+	public void shutdown() {
+		synchronized (mongodProcesses) {
+			for (MongodProcess process : mongodProcesses) {
+				process.stop();
+			}
+			mongodProcesses.clear();
+		}
+		for (MongodExecutable executable : mongodExecutables) {
+			executable.stop();
+		}
+		mongodExecutables.clear();
+	}
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+
+/**
+ * Packs a database directory into one compressed tar archive and unpacks
+ * it into another one, streaming in both directions.
+ */
+public class DbDirArchive {
+
+	private static final int BUFFER_LENGTH = 256 * 1024;
+
+	/**
+	 * both are gzip, so any gzip reader (and {@link #unpack}) reads them
+	 */
+	public enum Codec {
+		/**
+		 * default compression level
+		 */
+		GZIP(Deflater.DEFAULT_COMPRESSION),
+		/**
+		 * several times faster to write, somewhat larger
+		 */
+		GZIP_FAST(Deflater.BEST_SPEED);
+
+		private final int level;
+
+		Codec(int level) {
+			this.level = level;
+		}
+
+		private OutputStream compress(OutputStream out, int threads) throws IOException {
+			if (threads > 1) {
+				return new ParallelGzipOutputStream(out, threads, level);
+			}
+			GzipParameters parameters = new GzipParameters();
+			parameters.setCompressionLevel(level);
+			return new GzipCompressorOutputStream(out, parameters);
+		}
+	}
+
+	/**
+	 * @param threads more than one compresses gzip blocks in parallel
+	 */
+	public static Report pack(Path dbDir, Path archive, Codec codec, int threads) throws IOException {
+		Objects.requireNonNull(dbDir);
+		Objects.requireNonNull(archive);
+		Objects.requireNonNull(codec);
+
+		if (!Files.isDirectory(dbDir)) {
+			throw new IllegalArgumentException("Source must be a directory: " + dbDir);
+		}
+
+		long start = System.nanoTime();
+		Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+		Packer packer;
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+				codec.compress(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_LENGTH), threads))) {
+			tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+			packer = new Packer(dbDir, tar);
+			Files.walkFileTree(dbDir, packer);
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+		Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING);
+		return new Report(packer.files, packer.bytes, Files.size(archive), System.nanoTime() - start);
+	}
+
+	/**
+	 * existing files in the db dir are replaced
+	 */
+	public static Report unpack(Path archive, Path dbDir) throws IOException {
+		Objects.requireNonNull(archive);
+		Objects.requireNonNull(dbDir);
+
+		long start = System.nanoTime();
+		Path root = dbDir.toAbsolutePath().normalize();
+		Files.createDirectories(root);
+		int files = 0;
+		long bytes = 0;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(archive), BUFFER_LENGTH);
+				TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(in, true))) {
+			TarArchiveEntry entry;
+			while ((entry = tar.getNextTarEntry()) != null) {
+				Path target = root.resolve(entry.getName()).normalize();
+				if (!target.startsWith(root)) {
+					throw new IOException("entry outside of the db dir: " + entry.getName());
+				}
+				if (entry.isDirectory()) {
+					Files.createDirectories(target);
+				} else {
+					Files.createDirectories(target.getParent());
+					Files.copy(tar, target, StandardCopyOption.REPLACE_EXISTING);
+					Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getModTime().getTime()));
+					files++;
+					bytes += entry.getSize();
+				}
+			}
+		}
+		return new Report(files, bytes, Files.size(archive), System.nanoTime() - start);
+	}
+
+	public static final class Report {
+
+		private final int files;
+		private final long bytes;
+		private final long archiveBytes;
+		private final long elapsedNanos;
+
+		Report(int files, long bytes, long archiveBytes, long elapsedNanos) {
+			this.files = files;
+			this.bytes = bytes;
+			this.archiveBytes = archiveBytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public int getFiles() {
+			return files;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getArchiveBytes() {
+			return archiveBytes;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Report{files=" + files + ", bytes=" + bytes + ", archiveBytes=" + archiveBytes + ", elapsed="
+					+ TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+		}
+	}
+
+	private static class Packer extends SimpleFileVisitor<Path> {
+		private final Path source;
+		private final TarArchiveOutputStream tar;
+		int files;
+		long bytes;
+
+		Packer(Path source, TarArchiveOutputStream tar) {
+			this.source = source;
+			this.tar = tar;
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+			if (!dir.equals(source)) {
+				tar.putArchiveEntry(new TarArchiveEntry(dir.toFile(), name(dir) + "/"));
+				tar.closeArchiveEntry();
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			tar.putArchiveEntry(new TarArchiveEntry(file.toFile(), name(file)));
+			Files.copy(file, tar);
+			tar.closeArchiveEntry();
+			files++;
+			bytes += attrs.size();
+			return FileVisitResult.CONTINUE;
+		}
+
+		private String name(Path path) {
+			return source.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.process.distribution.Platform;
+
+/**
+ * Stamps out copies of a (template) database directory as cheap as the
+ * filesystem allows: a reflink clone of the whole tree if supported, otherwise
+ * hardlinks for files mongod never writes to and a plain copy for the rest.
+ */
+public class DbDirCloner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DbDirCloner.class);
+
+	private static final long REFLINK_TIMEOUT_IN_MILLIS = 60 * 1000L;
+	// reflinks are only tried on linux and os x
+	private static final File DEV_NULL = new File("/dev/null");
+
+	/**
+	 * files written once when the dbpath is created and never touched again.
+	 * This is a narrow default: both files are tiny, so a {@link Strategy#HARDLINK}
+	 * clone with it still copies almost every byte. Pass a wider predicate to
+	 * {@link #cloneDirectory(Path, Path, Predicate)} only for files no clone ever writes to.
+	 */
+	public static final Predicate<Path> IMMUTABLE_WIRED_TIGER_FILES = path -> {
+		String name = path.getFileName().toString();
+		return name.equals("WiredTiger") || name.equals("storage.bson");
+	};
+
+	private static final Map<FileStore, Boolean> REFLINK_SUPPORT = new ConcurrentHashMap<>();
+
+	public enum Strategy {
+		/**
+		 * copy on write clone, no data is copied until one side changes
+		 */
+		REFLINK,
+		/**
+		 * immutable files are hardlinked, everything else is copied
+		 */
+		HARDLINK,
+		/**
+		 * byte copy of every file
+		 */
+		COPY
+	}
+
+	public static Report cloneDirectory(Path template, Path target) throws IOException {
+		return cloneDirectory(template, target, IMMUTABLE_WIRED_TIGER_FILES);
+	}
+
+	/**
+	 * @param immutableFiles files matching this predicate may be hardlinked, so
+	 *                       any change to them would show up in the template
+	 */
+	public static Report cloneDirectory(Path template, Path target, Predicate<Path> immutableFiles) throws IOException {
+		Objects.requireNonNull(template);
+		Objects.requireNonNull(target);
+		Objects.requireNonNull(immutableFiles);
+
+		if (!Files.isDirectory(template)) {
+			throw new IllegalArgumentException("Template must be a directory: " + template);
+		}
+		if (!Files.isDirectory(target)) {
+			throw new IllegalArgumentException("Target must be a directory: " + target);
+		}
+
+		long start = System.nanoTime();
+		if (tryReflink(template, target)) {
+			Counter counter = new Counter();
+			Files.walkFileTree(template, counter);
+			return new Report(Strategy.REFLINK, counter.files, 0, counter.bytes, System.nanoTime() - start);
+		}
+
+		Cloner cloner = new Cloner(template, target, immutableFiles);
+		Files.walkFileTree(template, cloner);
+		Strategy strategy = cloner.linked > 0 ? Strategy.HARDLINK : Strategy.COPY;
+		return new Report(strategy, cloner.files, cloner.linked, cloner.bytes, System.nanoTime() - start);
+	}
+
+	private static boolean tryReflink(Path template, Path target) {
+		List<String> command = reflinkCommand(template, target);
+		if (command == null) {
+			return false;
+		}
+		FileStore store;
+		try {
+			store = Files.getFileStore(target);
+		} catch (IOException ix) {
+			return false;
+		}
+		if (Boolean.FALSE.equals(REFLINK_SUPPORT.get(store))) {
+			return false;
+		}
+
+		Optional<Boolean> supported = runReflink(command, REFLINK_TIMEOUT_IN_MILLIS);
+		// only the exit code of cp tells about the filesystem, a timeout or interrupt does not
+		supported.ifPresent(it -> REFLINK_SUPPORT.put(store, it));
+		if (!supported.orElse(false)) {
+			LOGGER.debug("no reflink clone into {}, falling back to copy", target);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return exit code of the command is 0, empty if it did not finish
+	 */
+	static Optional<Boolean> runReflink(List<String> command, long timeoutInMillis) {
+		Process process = null;
+		try {
+			// output is discarded, so cp never blocks on a full pipe and the timeout holds
+			process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(DEV_NULL))
+				.start();
+			process.getOutputStream().close();
+			if (process.waitFor(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+				return Optional.of(process.exitValue() == 0);
+			}
+			process.destroyForcibly();
+		} catch (IOException ix) {
+			LOGGER.debug("reflink clone not available", ix);
+		} catch (InterruptedException ix) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+		}
+		return Optional.empty();
+	}
+
+	private static List<String> reflinkCommand(Path template, Path target) {
+		String source = template.toAbsolutePath() + "/.";
+		String destination = target.toAbsolutePath().toString();
+		switch (Platform.detect()) {
+			case Linux:
+				// cp uses the FICLONE ioctl with --reflink=always and fails if it is not supported
+				return Arrays.asList("cp", "-R", "--reflink=always", source, destination);
+			case OS_X:
+				// clonefile(2) on APFS
+				return Arrays.asList("cp", "-R", "-c", source, destination);
+			default:
+				return null;
+		}
+	}
+
+	public static final class Report {
+
+		private final Strategy strategy;
+		private final int files;
+		private final int linkedFiles;
+		private final long bytes;
+		private final long elapsedNanos;
+
+		Report(Strategy strategy, int files, int linkedFiles, long bytes, long elapsedNanos) {
+			this.strategy = strategy;
+			this.files = files;
+			this.linkedFiles = linkedFiles;
+			this.bytes = bytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public Strategy getStrategy() {
+			return strategy;
+		}
+
+		public int getFiles() {
+			return files;
+		}
+
+		public int getLinkedFiles() {
+			return linkedFiles;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Report{strategy=" + strategy + ", files=" + files + ", linkedFiles=" + linkedFiles + ", bytes=" + bytes
+					+ ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+		}
+	}
+
+	private static class Counter extends SimpleFileVisitor<Path> {
+		int files;
+		long bytes;
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			files++;
+			bytes += attrs.size();
+			return FileVisitResult.CONTINUE;
+		}
+	}
+
+	private static class Cloner extends Counter {
+		private final Path source;
+		private final Path target;
+		private final Predicate<Path> immutableFiles;
+		private boolean linkFailed;
+		int linked;
+
+		Cloner(Path source, Path target, Predicate<Path> immutableFiles) {
+			this.source = source;
+			this.target = target;
+			this.immutableFiles = immutableFiles;
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+			Files.createDirectories(target.resolve(source.relativize(dir)));
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			super.visitFile(file, attrs);
+			Path targetFile = target.resolve(source.relativize(file));
+			if (!linkFailed && immutableFiles.test(file)) {
+				try {
+					Files.deleteIfExists(targetFile);
+					Files.createLink(targetFile, file);
+					linked++;
+					return FileVisitResult.CONTINUE;
+				} catch (IOException | UnsupportedOperationException ix) {
+					// different filesystem or no hardlink support, don't try again
+					linkFailed = true;
+				}
+			}
+			Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+			return FileVisitResult.CONTINUE;
+		}
+	}
+}
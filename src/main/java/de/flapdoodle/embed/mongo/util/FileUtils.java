@@ -23,20 +23,36 @@ package de.flapdoodle.embed.mongo.util;
 import static java.nio.file.FileVisitResult.CONTINUE;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.CopyOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Some common functions for working with java.nio.file.*.
  */
 public class FileUtils {
 
+    /**
+     * smaller files are copied with {@link Files#copy}, which is as fast and has less overhead
+     */
+    static final long TRANSFER_TO_THRESHOLD = 1024 * 1024;
+
+    // copying is bound by io, not cpu
+    private static final ForkJoinPool COPY_POOL = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
     /**
      * Copies a directory recursively.
      *
@@ -58,6 +74,169 @@ public class FileUtils {
         Files.walkFileTree(source, new DirectoryCopier(source, target));
     }
 
+    /**
+     * Copies a directory recursively like {@link #copyDirectory(Path, Path)},
+     * but all directories are created first and the files are copied in
+     * parallel, large ones with {@link FileChannel#transferTo}.
+     *
+     * @param source The source directory.
+     * @param target The target directory.
+     * @return what was copied and how fast
+     */
+    public static CopyReport copyDirectoryInParallel(final Path source, final Path target) throws IOException {
+        return copyDirectoryInParallel(source, target, COPY_POOL);
+    }
+
+    public static CopyReport copyDirectoryInParallel(final Path source, final Path target, final ForkJoinPool pool) throws IOException {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+        Objects.requireNonNull(pool);
+
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("Source must be a directory");
+        }
+
+        if (!Files.isDirectory(target)) {
+            throw new IllegalArgumentException("Target must be a directory");
+        }
+
+        final long start = System.nanoTime();
+        final TreeCollector tree = new TreeCollector(source, target);
+        Files.walkFileTree(source, tree);
+
+        try {
+            pool.invoke(new CopyFiles(tree.files, 0, tree.files.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new CopyReport(tree.files.size(), tree.bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Result of {@link #copyDirectoryInParallel(Path, Path)}.
+     */
+    public static final class CopyReport {
+        private final int files;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        CopyReport(final int files, final long bytes, final long elapsedNanos) {
+            this.files = files;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long getBytesPerSecond() {
+            return bytes * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "CopyReport{files=" + files + ", bytes=" + bytes + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+                    + "ms, " + (getBytesPerSecond() / 1024 / 1024) + "MB/s}";
+        }
+    }
+
+    private static final class FileToCopy {
+        private final Path source;
+        private final Path target;
+        private final long size;
+
+        FileToCopy(final Path source, final Path target, final long size) {
+            this.source = source;
+            this.target = target;
+            this.size = size;
+        }
+    }
+
+    /**
+     * creates the directories while walking, the files are copied later
+     */
+    private static class TreeCollector extends SimpleFileVisitor<Path> {
+        private final Path source;
+        private final Path target;
+        private final List<FileToCopy> files = new ArrayList<>();
+        private long bytes;
+
+        TreeCollector(final Path source, final Path target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+            Files.createDirectories(target.resolve(source.relativize(dir)));
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+            files.add(new FileToCopy(file, target.resolve(source.relativize(file)), attrs.size()));
+            bytes += attrs.size();
+            return CONTINUE;
+        }
+    }
+
+    private static class CopyFiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<FileToCopy> files;
+        private final int from;
+        private final int to;
+
+        CopyFiles(final List<FileToCopy> files, final int from, final int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new CopyFiles(files, from, middle), new CopyFiles(files, middle, to));
+                return;
+            }
+            if (to > from) {
+                try {
+                    copy(files.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private static void copy(final FileToCopy file) throws IOException {
+            if (file.size < TRANSFER_TO_THRESHOLD) {
+                Files.copy(file.source, file.target, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            try (FileChannel in = FileChannel.open(file.source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(file.target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                final long size = in.size();
+                long position = 0;
+                long transferred;
+                // a file of a live db dir may shrink while it is copied, nothing is left then
+                while (position < size && (transferred = in.transferTo(position, size - position, out)) > 0) {
+                    position += transferred;
+                }
+            }
+        }
+    }
+
     private static class DirectoryCopier extends SimpleFileVisitor<Path> {
         private final Path source;
         private final Path target;
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a copy of a database directory up to date: only files whose size
+ * or modification time (and optionally content hash) differ from the
+ * manifest written with the last snapshot are copied, files of the last
+ * snapshot which are gone from the source are deleted.
+ * <p>
+ * Files in the destination which were not put there by a snapshot are
+ * left alone.
+ */
+public class IncrementalSnapshot {
+
+	/**
+	 * written into the destination, {@code relative/path=size mtime [sha256]}
+	 */
+	public static final String MANIFEST = ".embedmongo-snapshot";
+
+	/**
+	 * @param hashContents files with the same size but a different modification
+	 *                     time are only copied if their content changed, and
+	 *                     files with the same size and modification time are
+	 *                     compared by content too
+	 */
+	public static Report snapshot(Path source, Path destination, boolean hashContents) throws IOException {
+		Objects.requireNonNull(source);
+		Objects.requireNonNull(destination);
+
+		if (!Files.isDirectory(source)) {
+			throw new IllegalArgumentException("Source must be a directory: " + source);
+		}
+		Files.createDirectories(destination);
+
+		long start = System.nanoTime();
+		Properties last = load(destination.resolve(MANIFEST));
+		Syncer syncer = new Syncer(source, destination, last, hashContents);
+		Files.walkFileTree(source, syncer);
+
+		int deleted = 0;
+		for (String name : last.stringPropertyNames()) {
+			if (!syncer.seen.contains(name)) {
+				Path file = destination.resolve(name);
+				if (Files.deleteIfExists(file)) {
+					deleted++;
+				}
+				deleteEmptyParents(file.getParent(), destination);
+			}
+		}
+
+		store(syncer.next, destination.resolve(MANIFEST));
+		return new Report(syncer.copied, syncer.unchanged, deleted, syncer.bytes, System.nanoTime() - start);
+	}
+
+	private static void deleteEmptyParents(Path dir, Path destination) throws IOException {
+		Path current = dir;
+		while (current != null && !current.equals(destination) && current.startsWith(destination)) {
+			try {
+				Files.delete(current);
+			} catch (IOException ix) {
+				// not empty (or already gone), nothing more to clean up
+				return;
+			}
+			current = current.getParent();
+		}
+	}
+
+	private static Properties load(Path manifest) throws IOException {
+		Properties properties = new Properties();
+		if (Files.isRegularFile(manifest)) {
+			try (InputStream in = Files.newInputStream(manifest)) {
+				properties.load(in);
+			}
+		}
+		return properties;
+	}
+
+	private static void store(Properties properties, Path manifest) throws IOException {
+		Path temp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+		try (OutputStream out = Files.newOutputStream(temp)) {
+			properties.store(out, "embedmongo snapshot");
+		}
+		Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public static final class Report {
+
+		private final int copiedFiles;
+		private final int unchangedFiles;
+		private final int deletedFiles;
+		private final long copiedBytes;
+		private final long elapsedNanos;
+
+		Report(int copiedFiles, int unchangedFiles, int deletedFiles, long copiedBytes, long elapsedNanos) {
+			this.copiedFiles = copiedFiles;
+			this.unchangedFiles = unchangedFiles;
+			this.deletedFiles = deletedFiles;
+			this.copiedBytes = copiedBytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public int getCopiedFiles() {
+			return copiedFiles;
+		}
+
+		public int getUnchangedFiles() {
+			return unchangedFiles;
+		}
+
+		public int getDeletedFiles() {
+			return deletedFiles;
+		}
+
+		public long getCopiedBytes() {
+			return copiedBytes;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Report{copiedFiles=" + copiedFiles + ", unchangedFiles=" + unchangedFiles + ", deletedFiles=" + deletedFiles
+					+ ", copiedBytes=" + copiedBytes + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+		}
+	}
+
+	private static class Syncer extends SimpleFileVisitor<Path> {
+		private final Path source;
+		private final Path destination;
+		private final Properties last;
+		private final boolean hashContents;
+		final Properties next = new Properties();
+		final Set<String> seen = new HashSet<>();
+		int copied;
+		int unchanged;
+		long bytes;
+
+		Syncer(Path source, Path destination, Properties last, boolean hashContents) {
+			this.source = source;
+			this.destination = destination;
+			this.last = last;
+			this.hashContents = hashContents;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			String name = source.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+			seen.add(name);
+			Path target = destination.resolve(name);
+			long size = attrs.size();
+			long modified = attrs.lastModifiedTime().toMillis();
+
+			String[] recorded = last.getProperty(name, "").split(" ");
+			boolean sameSize = recorded.length >= 2 && recorded[0].equals(String.valueOf(size)) && Files.isRegularFile(target);
+			boolean sameTime = sameSize && recorded[1].equals(String.valueOf(modified));
+			String hash = null;
+			boolean changed;
+			if (!sameSize) {
+				changed = true;
+			} else if (hashContents) {
+				hash = Sha256.of(file);
+				changed = recorded.length < 3 || !recorded[2].equals(hash);
+			} else {
+				changed = !sameTime;
+			}
+
+			if (changed) {
+				Files.createDirectories(target.getParent());
+				Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+				copied++;
+				bytes += size;
+				if (hashContents && hash == null) {
+					hash = Sha256.of(target);
+				}
+			} else {
+				unchanged++;
+			}
+			next.setProperty(name, size + " " + modified + (hash != null ? " " + hash : ""));
+			return FileVisitResult.CONTINUE;
+		}
+	}
+}
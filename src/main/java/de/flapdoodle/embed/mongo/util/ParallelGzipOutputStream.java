@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+
+/**
+ * Compresses blocks of the stream on several threads, each into its own
+ * gzip member (like pigz does), which any gzip reader decompresses as one
+ * stream.
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+
+	static final int BLOCK_SIZE = 1024 * 1024;
+
+	private final OutputStream out;
+	private final ExecutorService executor;
+	private final int level;
+	private final int maxPending;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int count;
+	private boolean closed;
+
+	ParallelGzipOutputStream(OutputStream out, int threads, int level) {
+		this.out = out;
+		this.level = level;
+		this.maxPending = threads * 2;
+		this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "embedmongo-gzip");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		int offset = off;
+		int left = len;
+		while (left > 0) {
+			int chunk = Math.min(left, block.length - count);
+			System.arraycopy(b, offset, block, count, chunk);
+			count += chunk;
+			offset += chunk;
+			left -= chunk;
+			if (count == block.length) {
+				submitBlock();
+			}
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		byte[] data = block;
+		int length = count;
+		pending.add(executor.submit(() -> gzip(data, length, level)));
+		block = new byte[BLOCK_SIZE];
+		count = 0;
+		while (pending.size() > maxPending) {
+			writeNext();
+		}
+	}
+
+	private void writeNext() throws IOException {
+		try {
+			out.write(pending.poll().get());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while compressing");
+		} catch (ExecutionException ex) {
+			throw new IOException("could not compress", ex.getCause());
+		}
+	}
+
+	private static byte[] gzip(byte[] data, int length, int level) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2);
+		GzipParameters parameters = new GzipParameters();
+		parameters.setCompressionLevel(level);
+		try (GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(compressed, parameters)) {
+			gzip.write(data, 0, length);
+		}
+		return compressed.toByteArray();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (count > 0) {
+				submitBlock();
+			}
+			while (!pending.isEmpty()) {
+				writeNext();
+			}
+		} finally {
+			executor.shutdownNow();
+			out.close();
+		}
+	}
+}
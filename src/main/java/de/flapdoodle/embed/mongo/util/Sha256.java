@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * sha256 of files as lower case hex, as published next to the archives
+ */
+public final class Sha256 {
+
+	private static final int BUFFER_LENGTH = 64 * 1024;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private Sha256() {
+		// no instance
+	}
+
+	public static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("every jvm must support SHA-256", e);
+		}
+	}
+
+	public static String of(File file) throws IOException {
+		return of(file.toPath());
+	}
+
+	public static String of(Path file) throws IOException {
+		MessageDigest digest = digest();
+		update(digest, file, Long.MAX_VALUE);
+		return hex(digest.digest());
+	}
+
+	/**
+	 * feeds the first {@code length} bytes of {@code file} into the digest
+	 */
+	public static void update(MessageDigest digest, Path file, long length) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] buffer = new byte[BUFFER_LENGTH];
+			long left = length;
+			int read;
+			while (left > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, left))) != -1) {
+				digest.update(buffer, 0, read);
+				left -= read;
+			}
+		}
+	}
+
+	public static String hex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.MongoProcessGroup.Stage;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.MongosConfig;
+import de.flapdoodle.embed.mongo.distribution.Version;
+
+public class MongoProcessGroupTest {
+
+	@Test
+	public void stagesFollowTheClusterTopology() {
+		assertEquals(Stage.ROUTER, MongoProcessGroup.stageOf(MongosConfig.builder()
+				.version(Version.Main.PRODUCTION)
+				.configDB("localhost:27019")
+				.build()));
+		assertEquals(Stage.MONGOD, MongoProcessGroup.stageOf(MongodConfig.builder()
+				.version(Version.Main.PRODUCTION)
+				.build()));
+		assertEquals(Stage.CONFIG_SERVER, MongoProcessGroup.stageOf(MongodConfig.builder()
+				.version(Version.Main.PRODUCTION)
+				.isConfigServer(true)
+				.build()));
+	}
+
+	@Test
+	public void stopOfAnEmptyGroupIsImmediate() {
+		MongoProcessGroup group = new MongoProcessGroup();
+		assertTrue(group.stop(0));
+		assertTrue(group.stop(0));
+	}
+
+	@Test
+	public void stoppedGroupIsReleasedByTheShutdownHook() {
+		MongoProcessGroup group = new MongoProcessGroup();
+		assertTrue(group.stopsOnShutdown());
+		group.stop(0);
+		assertFalse(group.stopsOnShutdown());
+	}
+
+	@Test
+	public void membersAreStartedWithoutTheirOwnShutdownHook() {
+		for (Command command : new Command[] { Command.MongoD, Command.MongoS }) {
+			assertFalse(MongoProcessGroup.runtimeConfigFor(command, LoggerFactory.getLogger(MongoProcessGroupTest.class))
+					.isDaemonProcess());
+		}
+	}
+}
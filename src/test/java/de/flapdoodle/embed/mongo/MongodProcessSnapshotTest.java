@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.bson.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Feature;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+public class MongodProcessSnapshotTest {
+
+	private static final MongodStarter starter = MongodStarter.getDefaultInstance();
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void snapshotOverOpMsgCanBeStartedAgain() throws IOException {
+		assertTrue(Version.Main.V4_0.enabled(Feature.OP_MSG));
+		snapshotCanBeStartedAgain(Version.Main.V4_0);
+	}
+
+	@Test
+	public void snapshotOverOpQueryCanBeStartedAgain() throws IOException {
+		assertFalse(Version.Main.V3_4.enabled(Feature.OP_MSG));
+		snapshotCanBeStartedAgain(Version.Main.V3_4);
+	}
+
+	private void snapshotCanBeStartedAgain(IFeatureAwareVersion version) throws IOException {
+		File snapshot = new File(tempFolder.getRoot(), "snapshot");
+
+		MongodExecutable executable = starter.prepare(config(version, null));
+		MongodProcess process = executable.start();
+		try (MongoClient mongo = newMongo(process)) {
+			collection(mongo).insertOne(new Document("phase", 1));
+
+			SnapshotReport report = process.snapshotTo(snapshot.toPath());
+			assertTrue(report.getFiles() > 0);
+			assertTrue(report.getWritesBlockedNanos() <= report.getElapsedNanos());
+
+			// unlocked again
+			collection(mongo).insertOne(new Document("phase", 2));
+			assertEquals(2, collection(mongo).countDocuments());
+		} finally {
+			process.stop();
+			executable.stop();
+		}
+
+		executable = starter.prepare(config(version, snapshot.getAbsolutePath()));
+		process = executable.start();
+		try (MongoClient mongo = newMongo(process)) {
+			assertEquals(1, collection(mongo).countDocuments());
+		} finally {
+			process.stop();
+			executable.stop();
+		}
+	}
+
+	private static MongodConfig config(IFeatureAwareVersion version, String databaseDir) throws IOException {
+		return MongodConfig.builder()
+				.version(version)
+				.net(new Net(Network.getFreeServerPort(), Network.localhostIsIPv6()))
+				.replication(new Storage(databaseDir, null, 0))
+				.build();
+	}
+
+	private static MongoClient newMongo(MongodProcess process) {
+		return new MongoClient("localhost", process.getConfig().net().getPort());
+	}
+
+	private static MongoCollection<Document> collection(MongoClient mongo) {
+		return mongo.getDatabase("snapshot").getCollection("phases");
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.mongo.config.RamDisk;
+
+public class RamDiskReservationsTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final List<File> created = new ArrayList<>();
+
+	@After
+	public void releaseAll() {
+		created.forEach(RamDiskReservations::release);
+	}
+
+	@Test
+	public void dbDirIsCreatedOnTheRamDiskIfTheBudgetFits() {
+		File dbDir = create(new RamDisk(tempFolder.getRoot().getAbsolutePath(), 1024));
+
+		assertNotNull(dbDir);
+		assertTrue(dbDir.isDirectory());
+		assertEquals(tempFolder.getRoot(), dbDir.getParentFile());
+		assertTrue(dbDir.getName().startsWith("embedmongo-db"));
+	}
+
+	@Test
+	public void impossibleBudgetFallsBackToDisk() {
+		assertNull(create(new RamDisk(tempFolder.getRoot().getAbsolutePath(), Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void missingLocationFallsBackToDisk() {
+		assertNull(create(new RamDisk(new File(tempFolder.getRoot(), "missing").getAbsolutePath(), 1024)));
+	}
+
+	@Test
+	public void outstandingReservationsAreTakenFromTheFreeSpaceUntilReleased() throws IOException {
+		long usable = Files.getFileStore(tempFolder.getRoot().toPath()).getUsableSpace();
+		// more than half of the free space, so only one fits at a time
+		RamDisk ramDisk = new RamDisk(tempFolder.getRoot().getAbsolutePath(), usable / 10 * 6);
+
+		File first = create(ramDisk);
+		assertNotNull(first);
+		assertNull(create(ramDisk));
+
+		RamDiskReservations.release(first);
+		assertNotNull(create(ramDisk));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void budgetMustBePositive() {
+		new RamDisk(tempFolder.getRoot().getAbsolutePath(), 0);
+	}
+
+	private File create(RamDisk ramDisk) {
+		File dbDir = RamDiskReservations.createDbDir(ramDisk, "embedmongo-db");
+		if (dbDir != null) {
+			created.add(dbDir);
+		}
+		return dbDir;
+	}
+}
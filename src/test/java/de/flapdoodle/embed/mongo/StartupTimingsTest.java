@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.flapdoodle.embed.mongo.StartupTimings.Phase;
+
+public class StartupTimingsTest {
+
+	@Test
+	public void recordOutsideOfPreparationIsIgnored() {
+		List<StartupTimings.Span> spans = new ArrayList<>();
+		StartupTimings.record(Phase.DOWNLOAD, 0, 10);
+
+		List<StartupTimings.Span> outer = StartupTimings.beginPreparation(spans);
+		try {
+			StartupTimings.record(Phase.DOWNLOAD, 10, 30);
+		} finally {
+			StartupTimings.endPreparation(outer);
+		}
+		StartupTimings.record(Phase.DOWNLOAD, 30, 40);
+
+		assertEquals(1, spans.size());
+		assertEquals(20, spans.get(0).durationNanos());
+	}
+
+	@Test
+	public void durationsAreSummedPerPhase() {
+		List<StartupTimings.Span> spans = new ArrayList<>();
+		spans.add(new StartupTimings.Span(Phase.EXTRACTION, 100, 150));
+		spans.add(new StartupTimings.Span(Phase.DB_DIR, 150, 160));
+		spans.add(new StartupTimings.Span(Phase.SPAWN, 160, 200));
+		spans.add(new StartupTimings.Span(Phase.READY, 200, 300));
+
+		StartupTimings timings = new StartupTimings(spans);
+
+		assertEquals(0, timings.durationNanos(Phase.DOWNLOAD));
+		assertEquals(50, timings.durationNanos(Phase.EXTRACTION));
+		assertEquals(100, timings.durationNanos(Phase.READY));
+		assertEquals(200, timings.totalNanos());
+		assertTrue(timings.toString().contains("READY=0ms"));
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TempDbDirReaperTest {
+
+	// above any pid_max, never alive
+	private static final long DEAD_PID = 999999999L;
+	private static final long OLD = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final TempDbDirReaper reaper = new TempDbDirReaper(Long.MAX_VALUE, Long.MAX_VALUE, TimeUnit.MINUTES.toMillis(10));
+
+	@Test
+	public void ownerIsTakenFromTheName() {
+		String uuid = "12345678-aaaa-bbbb-cccc-1234567890ab";
+		assertEquals(Optional.of(4711L), TempDbDirReaper.ownerPid("embedmongo-db-4711-" + uuid));
+		assertEquals(Optional.of(4711L), TempDbDirReaper.ownerPid("embedmongo-db-4711-" + uuid + TempDbDirReaper.TRASH_SUFFIX));
+		assertEquals(Optional.empty(), TempDbDirReaper.ownerPid("embedmongo-db-" + uuid));
+	}
+
+	@Test
+	public void deletedDirIsGoneRightAwayAndRemovedInBackground() throws IOException, InterruptedException, ExecutionException {
+		File dbDir = dbDir(TempDbDirReaper.dbDirPrefix() + "-" + UUID.randomUUID());
+
+		reaper.delete(dbDir).get();
+
+		assertFalse(dbDir.exists());
+		assertFalse(new File(dbDir.getParentFile(), dbDir.getName() + TempDbDirReaper.TRASH_SUFFIX).exists());
+	}
+
+	@Test
+	public void onlyDirsOfDeadProcessesAreReaped() throws IOException {
+		File deadOwner = dbDir("embedmongo-db-" + DEAD_PID + "-" + UUID.randomUUID());
+		File deadOwnerTrash = dbDir("embedmongo-db-" + DEAD_PID + "-" + UUID.randomUUID() + TempDbDirReaper.TRASH_SUFFIX);
+		File ours = dbDir(TempDbDirReaper.dbDirPrefix() + "-" + UUID.randomUUID());
+		File oldWithLivingMongod = dbDir("embedmongo-db-" + UUID.randomUUID());
+		lockedBy(oldWithLivingMongod, ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
+		oldWithLivingMongod.setLastModified(OLD);
+		File oldWithDeadMongod = dbDir("embedmongo-db-" + UUID.randomUUID());
+		lockedBy(oldWithDeadMongod, String.valueOf(DEAD_PID));
+		oldWithDeadMongod.setLastModified(OLD);
+		File freshWithoutOwner = dbDir("embedmongo-db-" + UUID.randomUUID());
+		File other = dbDir("unrelated");
+
+		TempDbDirReaper.Result result = reaper.reapOrphans(tempFolder.getRoot());
+
+		assertEquals(3, result.getDirs());
+		assertFalse(deadOwner.exists());
+		assertFalse(deadOwnerTrash.exists());
+		assertFalse(oldWithDeadMongod.exists());
+		assertTrue(ours.exists());
+		assertTrue(oldWithLivingMongod.exists());
+		assertTrue(freshWithoutOwner.exists());
+		assertTrue(other.exists());
+	}
+
+	@Test
+	public void scanStopsWhenBudgetIsUsedUp() throws IOException {
+		File first = dbDir("embedmongo-db-" + DEAD_PID + "-" + UUID.randomUUID());
+		first.setLastModified(OLD);
+		File second = dbDir("embedmongo-db-" + DEAD_PID + "-" + UUID.randomUUID());
+
+		TempDbDirReaper.Result result = new TempDbDirReaper(Long.MAX_VALUE, 500, 0).reapOrphans(tempFolder.getRoot());
+
+		assertEquals(1000, result.getBytes());
+		assertFalse(new File(first, "collection-0.wt").exists());
+		assertTrue(new File(second, "collection-0.wt").exists());
+	}
+
+	private File dbDir(String name) throws IOException {
+		File dir = tempFolder.newFolder(name);
+		Files.write(new File(dir, "collection-0.wt").toPath(), new byte[1000]);
+		return dir;
+	}
+
+	private static void lockedBy(File dbDir, String pid) throws IOException {
+		Files.write(new File(dbDir, "mongod.lock").toPath(), (pid + "\n").getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.Paths;
+import de.flapdoodle.embed.process.config.store.DistributionDownloadPath;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.HttpProxyFactory;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+
+public class MirroredDownloadPathTest {
+
+	private static final String UPSTREAM = "https://fastdl.mongodb.org/";
+	private static final int PROXY_PORT = 17175;
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+
+	@Test
+	public void localMirrorWithTheArchiveIsUsed() throws IOException {
+		File mirror = tempDir.newFolder("mirror");
+		File archive = new File(mirror, "linux/mongodb-linux-x86_64-3.6.5.tgz");
+		assertTrue(archive.getParentFile().mkdirs());
+		assertTrue(archive.createNewFile());
+
+		DistributionDownloadPath downloadPath = downloadPath(MirroredDownloadPath.mirror(mirror.getAbsolutePath()));
+
+		assertEquals(mirror.toURI().toString(), downloadPath.getPath(distribution));
+	}
+
+	@Test
+	public void unavailableMirrorsFallBackToUpstreamOnce() throws IOException {
+		File mirror = tempDir.newFolder("mirror");
+		DistributionDownloadPath downloadPath = downloadPath(
+				MirroredDownloadPath.mirror(mirror.getAbsolutePath()),
+				MirroredDownloadPath.mirror("http://localhost:1/mongodb"));
+
+		assertEquals(UPSTREAM, downloadPath.getPath(distribution));
+
+		// resolved once per distribution
+		File archive = new File(mirror, "linux/mongodb-linux-x86_64-3.6.5.tgz");
+		assertTrue(archive.getParentFile().mkdirs());
+		assertTrue(archive.createNewFile());
+		assertEquals(UPSTREAM, downloadPath.getPath(distribution));
+	}
+
+	@Test
+	public void httpMirrorIsProbedLikeADownload() throws Exception {
+		List<String> probes = new CopyOnWriteArrayList<>();
+		Server proxy = new Server(PROXY_PORT);
+		proxy.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) {
+				probes.add(request.getMethod() + " " + request.getHeader("Host") + target + " " + request.getHeader("User-Agent"));
+				response.setStatus(HttpServletResponse.SC_OK);
+				((Request) request).setHandled(true);
+			}
+		});
+		proxy.start();
+		try {
+			DownloadConfig runtime = Defaults.downloadConfigFor(Command.MongoD)
+					.proxyFactory(new HttpProxyFactory("localhost", PROXY_PORT))
+					.userAgent("embedmongo-test")
+					.build();
+			MirroredDownloadPath downloadPath = new MirroredDownloadPath(new Paths(Command.MongoD),
+					Arrays.asList(MirroredDownloadPath.mirror("http://mirror.invalid/mongodb")), __ -> UPSTREAM);
+
+			assertEquals("http://mirror.invalid/mongodb/", downloadPath.getPath(runtime, distribution));
+			assertEquals(Arrays.asList("HEAD mirror.invalid/mongodb/linux/mongodb-linux-x86_64-3.6.5.tgz embedmongo-test"), probes);
+		} finally {
+			proxy.stop();
+		}
+	}
+
+	@Test
+	public void mirrorPathsEndWithASlash() {
+		assertEquals("http://mirror.local/mongodb/", MirroredDownloadPath.mirror("http://mirror.local/mongodb").getPath(distribution));
+		assertEquals("http://mirror.local/", MirroredDownloadPath.mirror("http://mirror.local/").getPath(distribution));
+	}
+
+	private static DistributionDownloadPath downloadPath(DistributionDownloadPath... mirrors) {
+		return new MirroredDownloadPath(new Paths(Command.MongoD), Arrays.asList(mirrors), __ -> UPSTREAM);
+	}
+}
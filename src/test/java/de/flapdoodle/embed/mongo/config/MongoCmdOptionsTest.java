@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.junit.Test;
+
+import de.flapdoodle.embed.mongo.distribution.Version;
+
+public class MongoCmdOptionsTest {
+
+	@Test
+	public void fastTestProfileUsesMmapv1FlagsOnlyBeforeWiredTigerBecameDefault() {
+		MongoCmdOptions mmapv1 = MongoCmdOptions.fastTestProfile(Version.V3_0_8);
+		assertTrue(mmapv1.useSmallFiles());
+		assertTrue(mmapv1.useNoPrealloc());
+		assertEquals(Optional.empty(), mmapv1.wiredTigerCacheSizeGB());
+		assertTrue(mmapv1.diagnosticDataCollectionEnabled());
+
+		MongoCmdOptions wiredTiger = MongoCmdOptions.fastTestProfile(Version.V3_2_20);
+		assertFalse(wiredTiger.useSmallFiles());
+		assertFalse(wiredTiger.useNoPrealloc());
+		assertEquals(Optional.of(1.0), wiredTiger.wiredTigerCacheSizeGB());
+		assertFalse(wiredTiger.diagnosticDataCollectionEnabled());
+	}
+
+	@Test
+	public void fastTestProfileUsesSmallestCacheWhereFractionsAreAllowed() {
+		MongoCmdOptions options = MongoCmdOptions.fastTestProfile(Version.V4_0_12);
+		assertEquals(Optional.of(0.25), options.wiredTigerCacheSizeGB());
+		assertFalse(options.ttlMonitorEnabled());
+		assertTrue(options.useNoJournal());
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.flapdoodle.embed.mongo.util.FileUtils;
+import de.flapdoodle.embed.process.io.directories.PropertyOrPlatformTempDir;
+
+/**
+ * Compares {@link FileUtils#copyDirectory} with
+ * {@link FileUtils#copyDirectoryInParallel} on a db dir like tree: some
+ * large collection files and many small index and journal files. Pass a
+ * real db dir as first argument to copy that instead.
+ */
+public class CopyDirectoryBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		Path source = args.length > 0
+				? Paths.get(args[0])
+				: generate(tempDir("embedmongo-copy-source").toPath());
+
+		// warm up, so both read from the page cache
+		report("warm up", source, false, 1);
+		report("copyDirectory", source, false, ROUNDS);
+		report("copyDirectoryInParallel", source, true, ROUNDS);
+
+		if (args.length == 0) {
+			delete(source.toFile());
+		}
+	}
+
+	private static void report(String label, Path source, boolean parallel, int rounds) throws IOException {
+		long nanos = 0;
+		long bytes = 0;
+		for (int i = 0; i < rounds; i++) {
+			File target = tempDir("embedmongo-copy-target");
+			try {
+				long start = System.nanoTime();
+				if (parallel) {
+					bytes = FileUtils.copyDirectoryInParallel(source, target.toPath()).getBytes();
+				} else {
+					FileUtils.copyDirectory(source, target.toPath());
+				}
+				nanos += System.nanoTime() - start;
+			} finally {
+				delete(target);
+			}
+		}
+		long average = nanos / rounds;
+		System.out.println(label + ": " + TimeUnit.NANOSECONDS.toMillis(average) + "ms"
+				+ (bytes > 0 ? ", " + (bytes * TimeUnit.SECONDS.toNanos(1) / Math.max(1, average) / 1024 / 1024) + "MB/s" : "")
+				+ " (average of " + rounds + " runs)");
+	}
+
+	private static File tempDir(String prefix) throws IOException {
+		return de.flapdoodle.embed.process.io.file.Files.createTempDir(PropertyOrPlatformTempDir.defaultInstance(), prefix);
+	}
+
+	private static void delete(File dir) {
+		de.flapdoodle.embed.process.io.file.Files.forceDelete(dir);
+	}
+
+	private static Path generate(Path dir) throws IOException {
+		Random random = new Random(42);
+		byte[] large = new byte[32 * 1024 * 1024];
+		random.nextBytes(large);
+		for (int i = 0; i < 4; i++) {
+			Files.write(dir.resolve("collection-" + i + ".wt"), large);
+		}
+		byte[] small = new byte[16 * 1024];
+		for (int i = 0; i < 400; i++) {
+			random.nextBytes(small);
+			Files.write(dir.resolve("index-" + i + ".wt"), small);
+		}
+		Path journal = Files.createDirectories(dir.resolve("journal"));
+		for (int i = 0; i < 10; i++) {
+			Files.write(journal.resolve("WiredTigerLog." + i), small);
+		}
+		return dir;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.examples;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongoCmdOptions;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.IFeatureAwareVersion;
+import de.flapdoodle.embed.mongo.distribution.Version;
+
+/**
+ * Compares startup time and resident memory (linux only) of the default
+ * options with {@link MongoCmdOptions#fastTestProfile(IFeatureAwareVersion)}.
+ */
+public class FastTestProfileBenchmark {
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws IOException {
+		IFeatureAwareVersion version = Version.Main.PRODUCTION;
+		MongodStarter starter = MongodStarter.getDefaultInstance();
+
+		// warm up, so download and extraction are not measured
+		run(starter, MongodConfig.builder().version(version).build());
+
+		report("defaults", starter, MongodConfig.builder()
+				.version(version)
+				.build());
+		report("fastTestProfile", starter, MongodConfig.builder()
+				.version(version)
+				.cmdOptions(MongoCmdOptions.fastTestProfile(version))
+				.build());
+	}
+
+	private static void report(String label, MongodStarter starter, MongodConfig config) throws IOException {
+		long startupNanos = 0;
+		long rssInKb = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			long[] result = run(starter, MongodConfig.builder().from(config).net(Net.defaults()).build());
+			startupNanos += result[0];
+			rssInKb += result[1];
+		}
+		System.out.println(label + ": startup " + TimeUnit.NANOSECONDS.toMillis(startupNanos / ROUNDS) + "ms, rss "
+				+ (rssInKb / ROUNDS) + "kB (average of " + ROUNDS + " runs)");
+	}
+
+	private static long[] run(MongodStarter starter, MongodConfig config) throws IOException {
+		MongodExecutable executable = starter.prepare(config);
+		try {
+			MongodProcess process = executable.start();
+			try {
+				long startup = process.getStartupTimings().totalNanos();
+				return new long[] { startup, residentSetSizeInKb(process.getProcessId()) };
+			} finally {
+				process.stop();
+			}
+		} finally {
+			executable.stop();
+		}
+	}
+
+	private static long residentSetSizeInKb(long pid) throws IOException {
+		Path status = Paths.get("/proc", String.valueOf(pid), "status");
+		if (!Files.exists(status)) {
+			return 0;
+		}
+		List<String> lines = Files.readAllLines(status, StandardCharsets.UTF_8);
+		for (String line : lines) {
+			if (line.startsWith("VmRSS:")) {
+				return Long.parseLong(line.replaceAll("[^0-9]", ""));
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BsonTest {
+
+	@Test
+	public void encodedDocumentDecodesToSameValues() throws IOException {
+		Map<String, Object> nested = new LinkedHashMap<>();
+		nested.put("timeoutSecs", 5);
+		nested.put("force", true);
+
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("shutdown", 1);
+		document.put("ok", 1.0);
+		document.put("name", "embedmongo");
+		document.put("size", 42L);
+		document.put("options", nested);
+		document.put("hosts", Arrays.asList("localhost:27017", "localhost:27018"));
+		document.put("nothing", null);
+
+		ByteBuffer buffer = ByteBuffer.wrap(Bson.encode(document));
+		Map<String, Object> decoded = Bson.decode(buffer);
+
+		assertEquals(document, decoded);
+		assertEquals(buffer.limit(), buffer.position());
+	}
+
+	@Test
+	public void okIsDetectedForIntegerAndDouble() {
+		assertEquals(true, WireProtocol.isOk(singleton("ok", 1.0)));
+		assertEquals(true, WireProtocol.isOk(singleton("ok", 1)));
+		assertEquals(false, WireProtocol.isOk(singleton("ok", 0.0)));
+		assertEquals(false, WireProtocol.isOk(singleton("errmsg", "failed")));
+	}
+
+	private static Map<String, Object> singleton(String key, Object value) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put(key, value);
+		return map;
+	}
+}
@@ -35,4 +35,11 @@ public class TestMongod extends TestCase {
 
 		assertEquals("PID", 11026, Mongod.getMongodProcessId(consoleOutput, -1));
 	}
+
+	public void testGetPIDFromJsonLog() {
+		String consoleOutput = "{\"t\":{\"$date\":\"2020-10-28T06:09:11.001+00:00\"},\"s\":\"I\",  \"c\":\"CONTROL\",  \"id\":23285,   \"ctx\":\"main\",\"msg\":\"Automatically disabling TLS 1.0, to force-enable TLS 1.0 specify --sslDisabledProtocols 'none'\"}\n" +
+				"{\"t\":{\"$date\":\"2020-10-28T06:09:11.003+00:00\"},\"s\":\"I\",  \"c\":\"CONTROL\",  \"id\":4615611, \"ctx\":\"initandlisten\",\"msg\":\"MongoDB starting\",\"attr\":{\"pid\":11026,\"port\":12345,\"dbPath\":\"/tmp/embedmongo-db\",\"architecture\":\"64-bit\",\"host\":\"mub001\"}}\n";
+
+		assertEquals("PID", 11026, Mongod.getMongodProcessId(consoleOutput, -1));
+	}
 }
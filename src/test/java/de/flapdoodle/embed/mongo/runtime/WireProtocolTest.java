@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class WireProtocolTest {
+
+	private static final int OP_MSG = 2013;
+
+	@Test
+	public void opMsgCommandIsSentWithDatabaseAndReplyIsDecoded() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			CompletableFuture<Map<String, Object>> received = serveOnce(server, true);
+
+			Map<String, Object> reply = WireProtocol.runCommandWithOpMsg(InetAddress.getLoopbackAddress(),
+					server.getLocalPort(), "admin", Collections.singletonMap("ping", 1), 1000);
+
+			assertTrue(WireProtocol.isOk(reply));
+			Map<String, Object> command = received.get(1, TimeUnit.SECONDS);
+			assertEquals(1, command.get("ping"));
+			assertEquals("admin", command.get("$db"));
+		}
+	}
+
+	@Test
+	public void shutdownIsConfirmedByClosedConnection() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			CompletableFuture<Map<String, Object>> received = serveOnce(server, false);
+
+			assertTrue(Mongod.sendShutdown(InetAddress.getLoopbackAddress(), server.getLocalPort(), true));
+			assertEquals(1, received.get(1, TimeUnit.SECONDS).get("shutdown"));
+		}
+	}
+
+	@Test
+	public void shutdownWithReplyFailed() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			serveOnce(server, true);
+
+			assertFalse(Mongod.sendShutdown(InetAddress.getLoopbackAddress(), server.getLocalPort(), true));
+		}
+	}
+
+	/**
+	 * accepts one OP_MSG, answers with ok:1 if reply is set, closes the
+	 * connection otherwise
+	 */
+	private static CompletableFuture<Map<String, Object>> serveOnce(ServerSocket server, boolean reply) {
+		CompletableFuture<Map<String, Object>> received = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			try (Socket socket = server.accept()) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				byte[] header = new byte[16];
+				in.readFully(header);
+				ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+				int length = headerBuffer.getInt();
+				int requestId = headerBuffer.getInt();
+				byte[] body = new byte[length - 16];
+				in.readFully(body);
+				ByteBuffer bodyBuffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+				bodyBuffer.getInt();
+				bodyBuffer.get();
+				received.complete(Bson.decode(bodyBuffer));
+
+				if (reply) {
+					Map<String, Object> ok = new LinkedHashMap<>();
+					ok.put("ok", 1.0);
+					byte[] document = Bson.encode(ok);
+					ByteArrayOutputStream message = new ByteArrayOutputStream();
+					Bson.writeInt(message, 16 + 5 + document.length);
+					Bson.writeInt(message, 1);
+					Bson.writeInt(message, requestId);
+					Bson.writeInt(message, OP_MSG);
+					Bson.writeInt(message, 0);
+					message.write(0);
+					message.write(document, 0, document.length);
+					message.writeTo(socket.getOutputStream());
+					socket.getOutputStream().flush();
+					in.read();
+				}
+			} catch (IOException e) {
+				received.completeExceptionally(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return received;
+	}
+}
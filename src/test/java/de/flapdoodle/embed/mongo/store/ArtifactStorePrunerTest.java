@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtifactStorePrunerTest {
+
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File artifactStore;
+	private File extraction;
+	private File lockDir;
+
+	@Before
+	public void setUp() throws IOException {
+		artifactStore = tempDir.newFolder("artifacts");
+		extraction = new File(artifactStore, "extracted");
+		lockDir = new File(artifactStore, LockingArtifactStore.LOCK_DIR);
+		assertTrue(lockDir.mkdirs());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvictedFirst() throws IOException {
+		distribution("Linux-B64--3.6.5", "linux/mongodb-linux-x86_64-3.6.5.tgz", 3 * HOUR);
+		distribution("Linux-B64--4.0.2", "linux/mongodb-linux-x86_64-4.0.2.tgz", HOUR);
+
+		ArtifactStorePruner.Result result = new ArtifactStorePruner(artifactStore, extraction, 3000, ArtifactStorePruner.UNLIMITED).prune();
+
+		assertEquals(Collections.singletonList("Linux-B64--3.6.5"), result.evicted());
+		// and the small usage record
+		assertTrue(result.freedBytes() > 2000 && result.freedBytes() < 2200);
+		assertFalse(new File(extraction, "Linux-B64--3.6.5").exists());
+		assertFalse(new File(artifactStore, "linux/mongodb-linux-x86_64-3.6.5.tgz").exists());
+		assertFalse(new File(lockDir, "Linux-B64--3.6.5.used").exists());
+		assertTrue(new File(extraction, "Linux-B64--4.0.2").isDirectory());
+		assertTrue(new File(artifactStore, "linux/mongodb-linux-x86_64-4.0.2.tgz").isFile());
+	}
+
+	@Test
+	public void oldArtifactsWithoutRecordedUseAreEvicted() throws IOException {
+		File archive = file(new File(artifactStore, "osx/mongodb-osx-ssl-x86_64-3.4.1.tgz"), 1000, 48 * HOUR);
+		File partial = file(new File(artifactStore, "osx/mongodb-osx-ssl-x86_64-3.6.5.tgz.part"), 1000, 48 * HOUR);
+		distribution("Linux-B64--4.0.2", "linux/mongodb-linux-x86_64-4.0.2.tgz", HOUR);
+
+		ArtifactStorePruner.Result result = new ArtifactStorePruner(artifactStore, extraction, ArtifactStorePruner.UNLIMITED, 24 * HOUR).prune();
+
+		assertEquals(Collections.singletonList("osx" + File.separator + "mongodb-osx-ssl-x86_64-3.4.1.tgz"), result.evicted());
+		assertFalse(archive.exists());
+		assertTrue(partial.exists());
+		assertTrue(result.sizeAfter() > 2000 && result.sizeAfter() < 2200);
+	}
+
+	@Test
+	public void lockedDistributionIsNotEvicted() throws Exception {
+		distribution("Linux-B64--3.6.5", "linux/mongodb-linux-x86_64-3.6.5.tgz", 3 * HOUR);
+		distribution("Linux-B64--4.0.2", "linux/mongodb-linux-x86_64-4.0.2.tgz", HOUR);
+
+		ReentrantLock lock = LockingArtifactStore.jvmLock(new File(lockDir, "Linux-B64--3.6.5.lock"));
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch pruned = new CountDownLatch(1);
+		Thread extracting = new Thread(() -> {
+			lock.lock();
+			try {
+				locked.countDown();
+				pruned.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} finally {
+				lock.unlock();
+			}
+		});
+		extracting.start();
+		locked.await();
+		try {
+			ArtifactStorePruner.Result result = new ArtifactStorePruner(artifactStore, extraction, 0, ArtifactStorePruner.UNLIMITED).prune();
+			assertEquals(Arrays.asList("Linux-B64--4.0.2"), result.evicted());
+			assertTrue(new File(extraction, "Linux-B64--3.6.5").isDirectory());
+		} finally {
+			pruned.countDown();
+			extracting.join();
+		}
+	}
+
+	private void distribution(String name, String archivePath, long unusedFor) throws IOException {
+		file(new File(extraction, name + "/extractmongod"), 1000, unusedFor);
+		file(new File(artifactStore, archivePath), 1000, unusedFor);
+		File used = new File(lockDir, name + LockingArtifactStore.USED_SUFFIX);
+		Files.write(used.toPath(), ("archive=" + archivePath + "\n").getBytes(StandardCharsets.ISO_8859_1));
+		assertTrue(used.setLastModified(System.currentTimeMillis() - unusedFor));
+	}
+
+	private static File file(File file, int size, long age) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), new byte[size]);
+		assertTrue(file.setLastModified(System.currentTimeMillis() - age));
+		return file;
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+
+public class ChecksumSourceTest {
+
+	private static final int LISTEN_PORT = 17174;
+
+	// sha256 of "archive"
+	private static final String SHA256 = "0eb3e36bfb24dcd9bb1d1bece1531216b59539a8fde17ee80224af0653c92aa3";
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile boolean published = true;
+	private Server server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new Server(LISTEN_PORT);
+		server.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) throws IOException {
+				requests.incrementAndGet();
+				if (failures.getAndDecrement() > 0) {
+					response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				} else if (!published) {
+					response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+				} else {
+					response.setStatus(HttpServletResponse.SC_OK);
+					response.getOutputStream().write((SHA256 + "  archive.tgz\n").getBytes(StandardCharsets.US_ASCII));
+				}
+				((Request) request).setHandled(true);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void missingChecksumIsRemembered() {
+		published = false;
+		ChecksumSource checksums = ChecksumSource.published();
+
+		assertFalse(checksums.sha256(downloadConfig(), distribution).isPresent());
+		published = true;
+		assertFalse(checksums.sha256(downloadConfig(), distribution).isPresent());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void failedFetchIsRetried() {
+		failures.set(1);
+
+		assertEquals(Optional.of(SHA256), ChecksumSource.published().sha256(downloadConfig(), distribution));
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	public void failedFetchIsNotRemembered() {
+		failures.set(Integer.MAX_VALUE);
+		ChecksumSource checksums = ChecksumSource.published();
+
+		try {
+			checksums.sha256(downloadConfig(), distribution);
+			fail("fetch should fail");
+		} catch (UncheckedIOException e) {
+			// expected
+		}
+		failures.set(0);
+		assertEquals(Optional.of(SHA256), checksums.sha256(downloadConfig(), distribution));
+	}
+
+	private DownloadConfig downloadConfig() {
+		return Defaults.downloadConfigFor(Command.MongoD)
+				.downloadPath(__ -> "http://localhost:" + LISTEN_PORT + "/")
+				.packageResolver(__ -> DistributionPackage.of(ArchiveType.TGZ,
+						FileSet.builder().addEntry(FileType.Executable, "mongod").build(), "archive.tgz"))
+				.build();
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+public class LockingArtifactStoreTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void onlyOneCallerPreparesADistributionAtATime() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		IArtifactStore delegate = new IArtifactStore() {
+			@Override
+			public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) throws IOException {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return Optional.empty();
+			}
+
+			@Override
+			public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+			}
+		};
+		DownloadConfig downloadConfig = Defaults.downloadConfigFor(Command.MongoD)
+				.artifactStorePath(new FixedPath(tempDir.getRoot().getAbsolutePath()))
+				.build();
+		Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> calls = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				// a store per caller, like in separate runtime configs
+				LockingArtifactStore store = new LockingArtifactStore(delegate, downloadConfig);
+				calls.add(executor.submit(() -> store.extractFileSet(distribution)));
+			}
+			for (Future<?> call : calls) {
+				call.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(1, maxRunning.get());
+		assertTrue(new File(new File(tempDir.getRoot(), LockingArtifactStore.LOCK_DIR), "Linux-B64--3.6.5.lock").isFile());
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.extract.DirectoryAndExecutableNaming;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.extract.NoopTempNaming;
+import de.flapdoodle.embed.process.extract.UUIDTempNaming;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+
+public class MultiCommandArtifactStoreTest {
+
+	private static final byte[] MONGOD = "#!/bin/sh\necho mongod\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MONGOIMPORT = "#!/bin/sh\necho mongoimport\n".getBytes(StandardCharsets.US_ASCII);
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	private File server;
+	private File artifactStore;
+	private File extraction;
+
+	@Before
+	public void setUp() throws IOException {
+		server = tempDir.newFolder("server");
+		artifactStore = tempDir.newFolder("artifacts");
+		extraction = tempDir.newFolder("extracted");
+
+		File archive = new File(server, "linux/mongodb-linux-x86_64-3.6.5.tgz");
+		assertTrue(archive.getParentFile().mkdirs());
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+			add(tar, "mongodb-linux-x86_64-3.6.5/bin/mongod", MONGOD);
+			add(tar, "mongodb-linux-x86_64-3.6.5/bin/mongoimport", MONGOIMPORT);
+		}
+	}
+
+	@Test
+	public void otherCommandsAreServedFromTheCache() throws IOException {
+		ExtractedFileSet mongod = store(Command.MongoD, Command.MongoImport, Command.MongoDump).extractFileSet(distribution).get();
+		assertArrayEquals(MONGOD, Files.readAllBytes(mongod.executable().toPath()));
+		assertTrue(mongod.libraryFiles().isEmpty());
+
+		File distributionDir = new File(extraction, "Linux-B64--3.6.5");
+		assertEquals(Arrays.asList("extractmongod", "extractmongoimport"), sorted(distributionDir.list()));
+		assertTrue(new File(distributionDir, "extractmongoimport").canExecute());
+
+		// neither the archive nor the download are needed anymore
+		delete(server);
+		delete(artifactStore);
+		ExtractedFileSet mongoimport = store(Command.MongoImport).extractFileSet(distribution).get();
+		assertArrayEquals(MONGOIMPORT, Files.readAllBytes(mongoimport.executable().toPath()));
+	}
+
+	@Test
+	public void missingOwnCommandFails() throws IOException {
+		try {
+			store(Command.MongoDump, Command.MongoD).extractFileSet(distribution);
+			throw new AssertionError("mongodump is not in the archive");
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains("mongodump"));
+		}
+		assertFalse(new File(extraction, "Linux-B64--3.6.5/extractmongodump").exists());
+		assertTrue(new File(extraction, "Linux-B64--3.6.5/extractmongod").isFile());
+	}
+
+	private MultiCommandArtifactStore store(Command command, Command... extractTogether) throws IOException {
+		DownloadConfig downloadConfig = Defaults.downloadConfigFor(command)
+				.downloadPath(__ -> server.toURI().toString())
+				.artifactStorePath(new FixedPath(artifactStore.getAbsolutePath()))
+				.build();
+		return new MultiCommandArtifactStore(command, Arrays.asList(extractTogether), downloadConfig,
+				new ResumableDownloader(ChecksumSource.none()),
+				DirectoryAndExecutableNaming.of(new FixedPath(extraction.getAbsolutePath()), new NoopTempNaming()),
+				DirectoryAndExecutableNaming.of(new FixedPath(tempDir.newFolder().getAbsolutePath()), new UUIDTempNaming()));
+	}
+
+	private static List<String> sorted(String[] names) {
+		Arrays.sort(names);
+		return Arrays.asList(names);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		assertTrue(file.delete());
+	}
+
+	private static void add(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+		TarArchiveEntry entry = new TarArchiveEntry(name);
+		entry.setSize(content.length);
+		tar.putArchiveEntry(entry);
+		OutputStream out = tar;
+		out.write(content);
+		tar.closeArchiveEntry();
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.distribution.Platform;
+
+public class PrefetchTest {
+
+	@Test
+	public void defaultsAreTheCurrentVersionsForThisPlatform() {
+		Prefetch.Options options = Prefetch.Options.parse();
+
+		assertTrue(options.versions.contains(Version.Main.V4_0));
+		assertFalse(options.versions.contains(Version.Main.PRODUCTION));
+		assertFalse(options.versions.contains(Version.Main.V3_2));
+		assertEquals(Arrays.asList(Platform.detect()), options.platforms);
+		assertEquals(Arrays.asList(Command.MongoD), options.commands);
+	}
+
+	@Test
+	public void optionsAreParsed() {
+		Prefetch.Options options = Prefetch.Options.parse("--versions", "V3_6,4.0.2", "--platforms", "Linux,OS_X",
+				"--commands", "mongod,MongoImport", "--threads", "8");
+
+		assertEquals(Version.Main.V3_6, options.versions.get(0));
+		assertEquals("4.0.2", options.versions.get(1).asInDownloadPath());
+		assertEquals(Arrays.asList(Platform.Linux, Platform.OS_X), options.platforms);
+		assertEquals(Arrays.asList(Command.MongoD, Command.MongoImport), options.commands);
+		assertEquals(8, options.threads);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownCommandIsRejected() {
+		Prefetch.Options.parse("--commands", "mongofoo");
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+import org.slf4j.LoggerFactory;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.store.RangedParallelDownloader.Range;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.io.progress.Slf4jProgressListener;
+
+public class RangedParallelDownloaderTest {
+
+	private static final int LISTEN_PORT = 17172;
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+	private final byte[] archive = new byte[3 * 1024 * 1024 + 17];
+	private final AtomicInteger rangeRequests = new AtomicInteger();
+	private volatile boolean acceptRanges;
+	private Server server;
+
+	@Before
+	public void setUp() throws Exception {
+		new Random(42).nextBytes(archive);
+
+		server = new Server(LISTEN_PORT);
+		server.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) throws IOException {
+				if (acceptRanges) {
+					response.setHeader("Accept-Ranges", "bytes");
+				}
+				String range = request.getHeader("Range");
+				Matcher matcher = range != null ? RANGE.matcher(range) : null;
+				if (acceptRanges && matcher != null && matcher.matches()) {
+					rangeRequests.incrementAndGet();
+					int start = Integer.parseInt(matcher.group(1));
+					int end = Integer.parseInt(matcher.group(2));
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + archive.length);
+					response.setContentLength(end - start + 1);
+					response.getOutputStream().write(archive, start, end - start + 1);
+				} else {
+					response.setStatus(HttpServletResponse.SC_OK);
+					response.setContentLength(archive.length);
+					if (!"HEAD".equals(request.getMethod())) {
+						response.getOutputStream().write(archive);
+					}
+				}
+				((Request) request).setHandled(true);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void downloadsRangesInParallel() throws Exception {
+		acceptRanges = true;
+		File file = new RangedParallelDownloader(4, 512 * 1024).download(downloadConfig(), distribution());
+		try {
+			assertEquals(4, rangeRequests.get());
+			assertArrayEquals(archive, Files.readAllBytes(file.toPath()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void fallsBackToSingleStreamWithoutRangeSupport() throws Exception {
+		acceptRanges = false;
+		File file = new RangedParallelDownloader(4, 512 * 1024).download(downloadConfig(), distribution());
+		try {
+			assertEquals(0, rangeRequests.get());
+			assertArrayEquals(archive, Files.readAllBytes(file.toPath()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void splitCoversEveryByteOnce() {
+		List<Range> ranges = RangedParallelDownloader.split(1000, 3, 100);
+		assertEquals(3, ranges.size());
+		long next = 0;
+		for (Range range : ranges) {
+			assertEquals(next, range.start);
+			next = range.end + 1;
+		}
+		assertEquals(1000, next);
+
+		assertEquals(1, RangedParallelDownloader.split(1000, 8, 600).size());
+		assertTrue(RangedParallelDownloader.split(1000, 8, 200).size() <= 5);
+	}
+
+	private static Distribution distribution() {
+		return Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	}
+
+	private static DownloadConfig downloadConfig() {
+		return Defaults.downloadConfigFor(Command.MongoD)
+				.downloadPath(__ -> "http://localhost:" + LISTEN_PORT + "/")
+				.packageResolver(__ -> DistributionPackage.of(ArchiveType.TGZ,
+						FileSet.builder().addEntry(FileType.Executable, "mongod").build(), "archive.tgz"))
+				.progressListener(new Slf4jProgressListener(LoggerFactory.getLogger(RangedParallelDownloaderTest.class)))
+				.build();
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+
+public class ResumableDownloaderTest {
+
+	private static final int LISTEN_PORT = 17173;
+	private static final String ETAG = "\"v1\"";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final byte[] archive = new byte[300 * 1024];
+	private final List<String> ranges = new CopyOnWriteArrayList<>();
+	private Server server;
+	private File artifactStore;
+
+	@Before
+	public void setUp() throws Exception {
+		new Random(42).nextBytes(archive);
+		artifactStore = tempDir.newFolder();
+
+		server = new Server(LISTEN_PORT);
+		server.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) throws IOException {
+				String range = request.getHeader("Range");
+				ranges.add(String.valueOf(range));
+				response.setHeader("ETag", ETAG);
+				if (range != null && ETAG.equals(request.getHeader("If-Range"))) {
+					int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setHeader("Content-Range", "bytes " + start + "-" + (archive.length - 1) + "/" + archive.length);
+					response.setContentLength(archive.length - start);
+					response.getOutputStream().write(archive, start, archive.length - start);
+				} else {
+					response.setStatus(HttpServletResponse.SC_OK);
+					response.setContentLength(archive.length);
+					response.getOutputStream().write(archive);
+				}
+				((Request) request).setHandled(true);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void continuesPartialDownload() throws Exception {
+		leavePartialDownload(1000, ETAG);
+
+		File file = new ResumableDownloader().download(downloadConfig(), distribution());
+
+		assertEquals(Arrays.asList("bytes=1000-"), ranges);
+		assertArrayEquals(archive, Files.readAllBytes(file.toPath()));
+		assertFalse(new File(artifactStore, "archive.tgz" + ResumableDownloader.META_SUFFIX).exists());
+	}
+
+	@Test
+	public void startsAgainIfArtifactChanged() throws Exception {
+		leavePartialDownload(1000, "\"v0\"");
+
+		File file = new ResumableDownloader().download(downloadConfig(), distribution());
+
+		assertEquals(Arrays.asList("bytes=1000-"), ranges);
+		assertArrayEquals(archive, Files.readAllBytes(file.toPath()));
+	}
+
+	private void leavePartialDownload(int length, String etag) throws IOException {
+		Files.write(new File(artifactStore, "archive.tgz" + ResumableDownloader.PART_SUFFIX).toPath(), Arrays.copyOf(archive, length));
+		Properties meta = new Properties();
+		meta.setProperty("url", "http://localhost:" + LISTEN_PORT + "/archive.tgz");
+		meta.setProperty("etag", etag);
+		meta.setProperty("length", String.valueOf(archive.length));
+		try (OutputStream out = Files.newOutputStream(new File(artifactStore, "archive.tgz" + ResumableDownloader.META_SUFFIX).toPath())) {
+			meta.store(out, null);
+		}
+	}
+
+	private static Distribution distribution() {
+		return Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	}
+
+	private DownloadConfig downloadConfig() {
+		return Defaults.downloadConfigFor(Command.MongoD)
+				.downloadPath(__ -> "http://localhost:" + LISTEN_PORT + "/")
+				.artifactStorePath(new FixedPath(artifactStore.getAbsolutePath()))
+				.packageResolver(__ -> DistributionPackage.of(ArchiveType.TGZ,
+						FileSet.builder().addEntry(FileType.Executable, "mongod").build(), "archive.tgz"))
+				.build();
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Random;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.extract.DirectoryAndExecutableNaming;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.extract.NoopTempNaming;
+import de.flapdoodle.embed.process.extract.UUIDTempNaming;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+public class StreamingArtifactStoreTest {
+
+	private static final byte[] MONGOD = "#!/bin/sh\necho mongod\n".getBytes(StandardCharsets.US_ASCII);
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	private File server;
+	private File artifactStore;
+	private File extraction;
+	private File archive;
+	private String sha256;
+
+	@Before
+	public void setUp() throws IOException {
+		server = tempDir.newFolder("server");
+		artifactStore = tempDir.newFolder("artifacts");
+		extraction = tempDir.newFolder("extracted");
+		archive = new File(server, "archive.tgz");
+
+		byte[] filler = new byte[512 * 1024];
+		new Random(42).nextBytes(filler);
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive.toPath())))) {
+			add(tar, "mongodb-linux-x86_64-3.6.5/README", filler);
+			add(tar, "mongodb-linux-x86_64-3.6.5/bin/mongod", MONGOD);
+			add(tar, "mongodb-linux-x86_64-3.6.5/bin/mongo", filler);
+		}
+		sha256 = Sha256.of(archive);
+	}
+
+	@Test
+	public void extractsOnlyTheFileSetWhileDownloading() throws IOException {
+		ExtractedFileSet files = store(false).extractFileSet(distribution).get();
+
+		assertArrayEquals(MONGOD, Files.readAllBytes(files.executable().toPath()));
+		assertTrue(files.executable().canExecute());
+		assertFalse(new File(artifactStore, "archive.tgz").exists());
+		assertEquals(1, extraction.listFiles().length);
+
+		// second time the extracted files are used
+		assertTrue(archive.delete());
+		store(false).extractFileSet(distribution).get();
+	}
+
+	@Test
+	public void archiveIsTeedIntoTheArtifactStore() throws IOException {
+		store(true).extractFileSet(distribution).get();
+
+		File artifact = new File(artifactStore, "archive.tgz");
+		assertArrayEquals(Files.readAllBytes(archive.toPath()), Files.readAllBytes(artifact.toPath()));
+		assertTrue(Checksums.isMarkedVerified(artifact));
+	}
+
+	private StreamingArtifactStore store(boolean teeToArtifactStore) throws IOException {
+		DownloadConfig downloadConfig = Defaults.downloadConfigFor(Command.MongoD)
+				.downloadPath(__ -> server.toURI().toString())
+				.artifactStorePath(new FixedPath(artifactStore.getAbsolutePath()))
+				.packageResolver(__ -> DistributionPackage.of(ArchiveType.TGZ,
+						FileSet.builder().addEntry(FileType.Executable, "mongod").build(), "archive.tgz"))
+				.build();
+		ChecksumSource checksums = ChecksumSource.pinned(Collections.singletonMap("archive.tgz", sha256));
+		return new StreamingArtifactStore(downloadConfig,
+				DirectoryAndExecutableNaming.of(new FixedPath(extraction.getAbsolutePath()), new NoopTempNaming()),
+				DirectoryAndExecutableNaming.of(new FixedPath(tempDir.newFolder().getAbsolutePath()), new UUIDTempNaming()),
+				teeToArtifactStore, checksums, new IArtifactStore() {
+					@Override
+					public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) {
+						throw new AssertionError("fallback should not be used");
+					}
+
+					@Override
+					public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+					}
+				});
+	}
+
+	private static void add(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+		TarArchiveEntry entry = new TarArchiveEntry(name);
+		entry.setSize(content.length);
+		tar.putArchiveEntry(entry);
+		OutputStream out = tar;
+		out.write(content);
+		tar.closeArchiveEntry();
+	}
+}
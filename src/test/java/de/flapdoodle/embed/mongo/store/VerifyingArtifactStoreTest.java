@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.mongo.Command;
+import de.flapdoodle.embed.mongo.config.Defaults;
+import de.flapdoodle.embed.mongo.util.Sha256;
+import de.flapdoodle.embed.process.config.store.DistributionPackage;
+import de.flapdoodle.embed.process.config.store.DownloadConfig;
+import de.flapdoodle.embed.process.config.store.FileSet;
+import de.flapdoodle.embed.process.config.store.FileType;
+import de.flapdoodle.embed.process.distribution.ArchiveType;
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.io.directories.FixedPath;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+public class VerifyingArtifactStoreTest {
+
+	// sha256 of "archive"
+	private static final String SHA256 = "0eb3e36bfb24dcd9bb1d1bece1531216b59539a8fde17ee80224af0653c92aa3";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+	private final AtomicInteger extractions = new AtomicInteger();
+
+	@Test
+	public void corruptArtifactIsDeletedBeforeExtraction() throws Exception {
+		File artifact = writeArtifact("corrupt");
+
+		store(downloadConfig(), SHA256).extractFileSet(distribution);
+
+		assertFalse(artifact.exists());
+		assertEquals(1, extractions.get());
+	}
+
+	@Test
+	public void verifiedArtifactIsNotHashedAgain() throws Exception {
+		DownloadConfig downloadConfig = downloadConfig();
+		File artifact = writeArtifact("archive");
+		String sha256 = Sha256.of(artifact);
+		assertEquals(SHA256, sha256);
+
+		store(downloadConfig, sha256).extractFileSet(distribution);
+		assertTrue(Checksums.isMarkedVerified(artifact));
+
+		AtomicInteger lookups = new AtomicInteger();
+		new VerifyingArtifactStore(delegate(), downloadConfig, (runtime, d) -> {
+			lookups.incrementAndGet();
+			return Optional.of(sha256);
+		}).extractFileSet(distribution);
+		assertEquals(0, lookups.get());
+	}
+
+	@Test
+	public void publishedChecksumFileIsParsed() {
+		assertEquals(Optional.of(SHA256), Checksums.parse(SHA256.toUpperCase() + "  mongodb-linux-x86_64-3.6.5.tgz\n"));
+		assertEquals(Optional.empty(), Checksums.parse("<html>not found</html>"));
+	}
+
+	private VerifyingArtifactStore store(DownloadConfig downloadConfig, String sha256) {
+		return new VerifyingArtifactStore(delegate(), downloadConfig,
+				ChecksumSource.pinned(Collections.singletonMap("archive.tgz", sha256)));
+	}
+
+	private IArtifactStore delegate() {
+		return new IArtifactStore() {
+			@Override
+			public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) {
+				extractions.incrementAndGet();
+				return Optional.empty();
+			}
+
+			@Override
+			public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+			}
+		};
+	}
+
+	private File writeArtifact(String content) throws Exception {
+		File artifact = new File(tempDir.getRoot(), "archive.tgz");
+		Files.write(artifact.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+		return artifact;
+	}
+
+	private DownloadConfig downloadConfig() {
+		return Defaults.downloadConfigFor(Command.MongoD)
+				.artifactStorePath(new FixedPath(tempDir.getRoot().getAbsolutePath()))
+				.packageResolver(__ -> DistributionPackage.of(ArchiveType.TGZ,
+						FileSet.builder().addEntry(FileType.Executable, "mongod").build(), "archive.tgz"))
+				.build();
+	}
+}
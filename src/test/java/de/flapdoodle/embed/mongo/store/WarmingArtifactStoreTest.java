@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.store;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.embed.process.distribution.BitSize;
+import de.flapdoodle.embed.process.distribution.Distribution;
+import de.flapdoodle.embed.process.distribution.Platform;
+import de.flapdoodle.embed.process.distribution.Version;
+import de.flapdoodle.embed.process.extract.ExtractedFileSet;
+import de.flapdoodle.embed.process.store.IArtifactStore;
+
+public class WarmingArtifactStoreTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final Distribution distribution = Distribution.of(Version.of("3.6.5"), Platform.Linux, BitSize.B64);
+
+	@Test
+	public void warmUpEndsAfterItStarted() throws Exception {
+		File executable = tempDir.newFile("mongod");
+		Files.write(executable.toPath(), new byte[4 * 1024 * 1024]);
+		ExtractedFileSet files = ExtractedFileSet.builder(tempDir.getRoot()).baseDirIsGenerated(false).executable(executable).build();
+
+		PageCacheWarmUp warmUp = PageCacheWarmUp.start(files);
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!warmUp.isDone() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(warmUp.isDone());
+		long now = System.nanoTime();
+		assertTrue(warmUp.startNanos() <= warmUp.endNanos(now));
+		assertTrue(warmUp.endNanos(now) <= now);
+	}
+
+	@Test
+	public void storeHandsOutTheExtractedFiles() throws IOException {
+		File executable = tempDir.newFile("mongos");
+		ExtractedFileSet files = ExtractedFileSet.builder(tempDir.getRoot()).baseDirIsGenerated(false).executable(executable).build();
+
+		assertSame(files, new WarmingArtifactStore(store(files)).extractFileSet(distribution).get());
+	}
+
+	private static IArtifactStore store(ExtractedFileSet files) {
+		return new IArtifactStore() {
+			@Override
+			public Optional<ExtractedFileSet> extractFileSet(Distribution distribution) {
+				return Optional.of(files);
+			}
+
+			@Override
+			public void removeFileSet(Distribution distribution, ExtractedFileSet files) {
+			}
+		};
+	}
+}
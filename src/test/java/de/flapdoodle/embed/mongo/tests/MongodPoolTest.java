@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.mongodb.MongoClient;
+
+import de.flapdoodle.embed.mongo.distribution.Version;
+
+public class MongodPoolTest {
+
+	private static MongodPool pool;
+
+	@BeforeClass
+	public static void startPool() {
+		pool = MongodPool.with(MongodPoolConfig.builder()
+				.poolSize(1)
+				.build());
+	}
+
+	@AfterClass
+	public static void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void returnedInstanceIsResetAndReused() throws Exception {
+		int port;
+		try (MongodPool.Lease lease = pool.lease(Version.Main.PRODUCTION)) {
+			port = lease.getConfig().net().getPort();
+			try (MongoClient mongo = lease.newMongo()) {
+				mongo.getDatabase("pooled").getCollection("data").insertOne(new Document("name", "first"));
+				assertTrue(databaseNames(mongo).contains("pooled"));
+			}
+		}
+
+		try (MongodPool.Lease lease = pool.lease(Version.Main.PRODUCTION)) {
+			assertEquals(port, lease.getConfig().net().getPort());
+			try (MongoClient mongo = lease.newMongo()) {
+				assertFalse(databaseNames(mongo).contains("pooled"));
+			}
+		}
+	}
+
+	private static List<String> databaseNames(MongoClient mongo) {
+		return mongo.listDatabaseNames().into(new ArrayList<>());
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+
+import de.flapdoodle.embed.mongo.distribution.Version;
+
+public class ReplicaSetForTestsFactoryTest {
+
+	@Test
+	public void singleMemberReplicaSetSupportsTransactions() throws Exception {
+		ReplicaSetForTestsFactory replicaSet = ReplicaSetForTestsFactory.with(Version.Main.V4_0);
+		try (MongoClient mongo = replicaSet.newMongo()) {
+			Document isMaster = mongo.getDatabase("admin").runCommand(new Document("isMaster", 1));
+			assertEquals(ReplicaSetForTestsFactory.REPLICA_SET_NAME, isMaster.getString("setName"));
+			assertTrue(isMaster.getBoolean("ismaster"));
+
+			MongoCollection<Document> collection = mongo.getDatabase("tx").getCollection("data");
+			collection.insertOne(new Document("name", "created before"));
+
+			try (ClientSession session = mongo.startSession()) {
+				session.startTransaction();
+				collection.insertOne(session, new Document("name", "inside"));
+				session.commitTransaction();
+			}
+			assertEquals(2, collection.countDocuments());
+		} finally {
+			replicaSet.shutdown();
+		}
+	}
+}
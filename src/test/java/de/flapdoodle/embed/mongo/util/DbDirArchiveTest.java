@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DbDirArchiveTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void gzipOnSeveralThreadsIsRestored() throws IOException {
+		roundTrip(DbDirArchive.Codec.GZIP, 4);
+	}
+
+	@Test
+	public void gzipOnOneThreadIsRestored() throws IOException {
+		roundTrip(DbDirArchive.Codec.GZIP, 1);
+	}
+
+	@Test
+	public void fastGzipIsRestored() throws IOException {
+		roundTrip(DbDirArchive.Codec.GZIP_FAST, 4);
+	}
+
+	@Test(expected = IOException.class)
+	public void entriesOutsideOfTheDbDirAreRejected() throws IOException {
+		Path archive = tempFolder.getRoot().toPath().resolve("evil.tar.gz");
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+			TarArchiveEntry entry = new TarArchiveEntry("../outside");
+			entry.setSize(1);
+			tar.putArchiveEntry(entry);
+			tar.write(1);
+			tar.closeArchiveEntry();
+		}
+		DbDirArchive.unpack(archive, tempFolder.newFolder("db").toPath());
+	}
+
+	private void roundTrip(DbDirArchive.Codec codec, int threads) throws IOException {
+		Path dbDir = tempFolder.newFolder("db").toPath();
+		Random random = new Random(42);
+		// compressible, larger than a few parallel blocks
+		byte[] collection = new byte[ParallelGzipOutputStream.BLOCK_SIZE * 3 + 123];
+		for (int i = 0; i < collection.length; i++) {
+			collection[i] = (byte) ('a' + random.nextInt(4));
+		}
+		Files.write(dbDir.resolve("collection-0.wt"), collection);
+		Files.createDirectories(dbDir.resolve("journal"));
+		Files.write(dbDir.resolve("journal").resolve("WiredTigerLog.0000000001"), new byte[] { 1, 2, 3 });
+		Files.createDirectories(dbDir.resolve("diagnostic.data"));
+
+		Path archive = tempFolder.getRoot().toPath().resolve("db.archive");
+		DbDirArchive.Report packed = DbDirArchive.pack(dbDir, archive, codec, threads);
+		assertEquals(2, packed.getFiles());
+		assertTrue(packed.getArchiveBytes() < collection.length);
+
+		Path restored = tempFolder.newFolder("restored").toPath();
+		DbDirArchive.Report unpacked = DbDirArchive.unpack(archive, restored);
+		assertEquals(2, unpacked.getFiles());
+		assertArrayEquals(collection, Files.readAllBytes(restored.resolve("collection-0.wt")));
+		assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(restored.resolve("journal").resolve("WiredTigerLog.0000000001")));
+		assertTrue(Files.isDirectory(restored.resolve("diagnostic.data")));
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DbDirClonerTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void cloneContainsAllFilesOfTemplate() throws IOException {
+		Path template = tempFolder.newFolder("template").toPath();
+		Path target = tempFolder.newFolder("target").toPath();
+
+		write(template.resolve("WiredTiger"), "WiredTiger\nWiredTiger 3.2.1");
+		write(template.resolve("collection-0.wt"), "data");
+		Files.createDirectories(template.resolve("journal"));
+		write(template.resolve("journal").resolve("WiredTigerLog.0000000001"), "journal");
+
+		DbDirCloner.Report report = DbDirCloner.cloneDirectory(template, target);
+
+		assertEquals(3, report.getFiles());
+		assertEquals(38, report.getBytes());
+		assertContentEquals(template.resolve("WiredTiger"), target.resolve("WiredTiger"));
+		assertContentEquals(template.resolve("collection-0.wt"), target.resolve("collection-0.wt"));
+		assertContentEquals(template.resolve("journal").resolve("WiredTigerLog.0000000001"),
+				target.resolve("journal").resolve("WiredTigerLog.0000000001"));
+	}
+
+	@Test
+	public void mutableFilesAreNeverShared() throws IOException {
+		Path template = tempFolder.newFolder("template").toPath();
+		Path target = tempFolder.newFolder("target").toPath();
+
+		write(template.resolve("collection-0.wt"), "data");
+
+		DbDirCloner.Report report = DbDirCloner.cloneDirectory(template, target);
+		assertEquals(0, report.getLinkedFiles());
+
+		write(target.resolve("collection-0.wt"), "changed");
+		assertTrue(Files.exists(template.resolve("collection-0.wt")));
+		assertNotEquals("changed", new String(Files.readAllBytes(template.resolve("collection-0.wt")), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void onlyTheExitCodeDecidesReflinkSupport() {
+		assertEquals(Optional.of(true), DbDirCloner.runReflink(Arrays.asList("true"), 10000));
+		assertEquals(Optional.of(false), DbDirCloner.runReflink(Arrays.asList("false"), 10000));
+		assertEquals(Optional.empty(), DbDirCloner.runReflink(Arrays.asList("sleep", "10"), 100));
+	}
+
+	private static void write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void assertContentEquals(Path expected, Path actual) throws IOException {
+		assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+	}
+}
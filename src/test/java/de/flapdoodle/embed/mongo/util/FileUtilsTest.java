@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileUtilsTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void parallelCopyContainsAllFilesAndDirectories() throws IOException {
+		Path source = tempFolder.newFolder("source").toPath();
+		Path target = tempFolder.newFolder("target").toPath();
+		Random random = new Random(42);
+
+		byte[] large = new byte[(int) FileUtils.TRANSFER_TO_THRESHOLD * 3 + 17];
+		random.nextBytes(large);
+		Files.write(source.resolve("collection-0.wt"), large);
+		Files.createDirectories(source.resolve("journal"));
+		Files.createDirectories(source.resolve("diagnostic.data"));
+		for (int i = 0; i < 20; i++) {
+			byte[] small = new byte[i * 100];
+			random.nextBytes(small);
+			Files.write(source.resolve("journal").resolve("WiredTigerLog." + i), small);
+		}
+		// replaced, not appended to
+		Files.createDirectories(target.resolve("journal"));
+		Files.write(target.resolve("journal").resolve("WiredTigerLog.1"), new byte[10000]);
+
+		FileUtils.CopyReport report = FileUtils.copyDirectoryInParallel(source, target);
+
+		assertEquals(21, report.getFiles());
+		assertEquals(large.length + 19000, report.getBytes());
+		assertArrayEquals(large, Files.readAllBytes(target.resolve("collection-0.wt")));
+		for (int i = 0; i < 20; i++) {
+			assertArrayEquals(Files.readAllBytes(source.resolve("journal").resolve("WiredTigerLog." + i)),
+					Files.readAllBytes(target.resolve("journal").resolve("WiredTigerLog." + i)));
+		}
+		assertTrue(Files.isDirectory(target.resolve("diagnostic.data")));
+	}
+}
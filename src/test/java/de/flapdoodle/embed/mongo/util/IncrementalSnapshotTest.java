@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2011
+ *   Michael Mosmann <michael@mosmann.de>
+ *   Martin Jöhren <m.joehren@googlemail.com>
+ *
+ * with contributions from
+ * 	konstantin-ba@github,Archimedes Trajano	(trajano@github)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.embed.mongo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalSnapshotTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void onlyChangedFilesAreCopiedAndRemovedOnesDeleted() throws IOException {
+		Path dbDir = tempFolder.newFolder("db").toPath();
+		Path snapshot = tempFolder.newFolder("snapshot").toPath();
+		Path unrelated = write(snapshot.resolve("README"), "not from a snapshot", 0);
+
+		write(dbDir.resolve("WiredTiger"), "WiredTiger", 1000);
+		write(dbDir.resolve("collection-0.wt"), "data", 1000);
+		Files.createDirectories(dbDir.resolve("journal"));
+		write(dbDir.resolve("journal").resolve("WiredTigerLog.0000000001"), "journal", 1000);
+
+		IncrementalSnapshot.Report first = IncrementalSnapshot.snapshot(dbDir, snapshot, false);
+		assertEquals(3, first.getCopiedFiles());
+		assertEquals(0, first.getUnchangedFiles());
+
+		write(dbDir.resolve("collection-0.wt"), "more data", 2000);
+		Files.delete(dbDir.resolve("journal").resolve("WiredTigerLog.0000000001"));
+		Files.delete(dbDir.resolve("journal"));
+
+		IncrementalSnapshot.Report second = IncrementalSnapshot.snapshot(dbDir, snapshot, false);
+		assertEquals(1, second.getCopiedFiles());
+		assertEquals(1, second.getUnchangedFiles());
+		assertEquals(1, second.getDeletedFiles());
+		assertEquals(9, second.getCopiedBytes());
+		assertEquals("more data", read(snapshot.resolve("collection-0.wt")));
+		assertFalse(Files.exists(snapshot.resolve("journal")));
+		assertTrue(Files.exists(unrelated));
+	}
+
+	@Test
+	public void touchedFilesAreNotCopiedWithContentHashes() throws IOException {
+		Path dbDir = tempFolder.newFolder("db").toPath();
+		Path snapshot = tempFolder.newFolder("snapshot").toPath();
+		write(dbDir.resolve("collection-0.wt"), "data", 1000);
+		write(dbDir.resolve("index-1.wt"), "index", 1000);
+		IncrementalSnapshot.snapshot(dbDir, snapshot, true);
+
+		// same size and time, different content: only a hash finds it
+		write(dbDir.resolve("collection-0.wt"), "atad", 1000);
+		Files.setLastModifiedTime(dbDir.resolve("index-1.wt"), FileTime.fromMillis(5000));
+
+		IncrementalSnapshot.Report report = IncrementalSnapshot.snapshot(dbDir, snapshot, true);
+		assertEquals(1, report.getCopiedFiles());
+		assertEquals(1, report.getUnchangedFiles());
+		assertEquals("atad", read(snapshot.resolve("collection-0.wt")));
+	}
+
+	@Test
+	public void missingSnapshotFileIsCopiedAgain() throws IOException {
+		Path dbDir = tempFolder.newFolder("db").toPath();
+		Path snapshot = tempFolder.newFolder("snapshot").toPath();
+		write(dbDir.resolve("collection-0.wt"), "data", 1000);
+		IncrementalSnapshot.snapshot(dbDir, snapshot, false);
+
+		Files.delete(snapshot.resolve("collection-0.wt"));
+
+		assertEquals(1, IncrementalSnapshot.snapshot(dbDir, snapshot, false).getCopiedFiles());
+		assertEquals("data", read(snapshot.resolve("collection-0.wt")));
+	}
+
+	private static Path write(Path path, String content, long modified) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+		return path;
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+}